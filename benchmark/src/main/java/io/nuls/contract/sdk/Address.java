@@ -0,0 +1,77 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.contract.sdk;
+
+import io.nuls.token.simulator.ContractSimulator;
+
+import java.math.BigInteger;
+
+/**
+ * Stand-in for the contract VM's Address, backed by ContractSimulator.
+ */
+public class Address {
+
+    private final String address;
+
+    public Address(String address) {
+        this.address = address;
+    }
+
+    public BigInteger balance() {
+        return BigInteger.ZERO;
+    }
+
+    public void transfer(BigInteger value) {
+    }
+
+    public void call(String methodName, String methodDesc, String[][] args, BigInteger value) {
+        ContractSimulator.current().invoke(this, methodName, args);
+    }
+
+    public String callWithReturnValue(String methodName, String methodDesc, String[][] args, BigInteger value) {
+        Object result = ContractSimulator.current().invoke(this, methodName, args);
+        return result == null ? null : result.toString();
+    }
+
+    public boolean isContract() {
+        return ContractSimulator.current().isContract(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return address.equals(((Address) o).address);
+    }
+
+    @Override
+    public int hashCode() {
+        return address.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return address;
+    }
+}
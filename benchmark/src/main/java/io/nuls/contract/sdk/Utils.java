@@ -0,0 +1,57 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.contract.sdk;
+
+import io.nuls.token.simulator.ContractSimulator;
+import io.nuls.token.simulator.RevertException;
+
+/**
+ * Stand-in for the contract VM's Utils: events go to ContractSimulator, failed requirements throw RevertException.
+ */
+public class Utils {
+
+    public static void emit(Event event) {
+        ContractSimulator.current().emit(event);
+    }
+
+    public static void require(boolean expression) {
+        if (!expression) {
+            revert();
+        }
+    }
+
+    public static void require(boolean expression, String errorMessage) {
+        if (!expression) {
+            revert(errorMessage);
+        }
+    }
+
+    public static void revert() {
+        throw new RevertException(null);
+    }
+
+    public static void revert(String errorMessage) {
+        throw new RevertException(errorMessage);
+    }
+}
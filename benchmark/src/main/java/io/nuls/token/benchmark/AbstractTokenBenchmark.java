@@ -0,0 +1,149 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.token.base.NRC721Base;
+import io.nuls.token.simulator.ContractSimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mint, transfer, approve and burn against a contract pre-filled with `tokens` tokens spread over `HOLDERS` holders.
+ * Token `i` has id `tokenId(i)` and starts with holder `i % HOLDERS`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractTokenBenchmark<T extends NRC721Base & MintableToken> {
+
+    protected static final int HOLDERS = 100;
+    /**
+     * Coprime with every `tokens` value, so that stepping by it visits tokens in a scattered order
+     */
+    private static final int STRIDE = 7919;
+
+    @Param({"1000", "100000", "1000000"})
+    protected int tokens;
+
+    protected ContractSimulator simulator;
+    protected T token;
+    protected Address minter;
+    protected Address[] holders;
+    protected BigInteger[] tokenIds;
+    /**
+     * index in `holders` of the current owner of each token
+     */
+    protected int[] owners;
+    private long nextTokenId;
+    private int cursor;
+
+    protected abstract T deploy();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulator = ContractSimulator.reset();
+        simulator.setRecordEvents(false);
+        minter = simulator.newAddress();
+        holders = new Address[HOLDERS];
+        for (int i = 0; i < HOLDERS; i++) {
+            holders[i] = simulator.newAddress();
+        }
+        token = simulator.deploy(minter, this::deploy);
+
+        tokenIds = new BigInteger[tokens];
+        owners = new int[tokens];
+        simulator.call(minter, token, () -> {
+            for (int i = 0; i < tokens; i++) {
+                tokenIds[i] = tokenId(i);
+                owners[i] = i % HOLDERS;
+                token.mint(holders[owners[i]], tokenIds[i]);
+            }
+        });
+        nextTokenId = tokens;
+    }
+
+    /**
+     * @return the id of the `i`-th minted token, `i` by default
+     */
+    protected BigInteger tokenId(long i) {
+        return BigInteger.valueOf(i);
+    }
+
+    protected int nextIndex() {
+        cursor = (int) ((cursor + (long) STRIDE) % tokens);
+        return cursor;
+    }
+
+    @Benchmark
+    public void mint() {
+        BigInteger tokenId = tokenId(nextTokenId++);
+        simulator.call(minter, token, () -> token.mint(holders[(int) (nextTokenId % HOLDERS)], tokenId));
+    }
+
+    @Benchmark
+    public void transfer() {
+        int index = nextIndex();
+        Address from = holders[owners[index]];
+        owners[index] = (owners[index] + 1) % HOLDERS;
+        Address to = holders[owners[index]];
+        simulator.call(from, token, () -> token.transferFrom(from, to, tokenIds[index]));
+    }
+
+    @Benchmark
+    public void approve() {
+        int index = nextIndex();
+        Address owner = holders[owners[index]];
+        Address approved = holders[(owners[index] + 1) % HOLDERS];
+        simulator.call(owner, token, () -> token.approve(approved, tokenIds[index]));
+    }
+
+    /**
+     * Burns a token and mints it again to the same holder, so that the supply stays at `tokens`.
+     */
+    @Benchmark
+    public void burnAndRemint() {
+        int index = nextIndex();
+        simulator.call(minter, token, () -> {
+            token.burn(tokenIds[index]);
+            token.mint(holders[owners[index]], tokenIds[index]);
+        });
+    }
+}
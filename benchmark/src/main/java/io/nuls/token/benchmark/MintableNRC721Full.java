@@ -0,0 +1,51 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.token.base.NRC721FullBase;
+
+import java.math.BigInteger;
+
+public class MintableNRC721Full extends NRC721FullBase implements MintableToken {
+
+    public MintableNRC721Full() {
+        super("Benchmark", "BM");
+    }
+
+    @Override
+    public void mint(Address to, BigInteger tokenId) {
+        mintWithTokenURIBase(to, tokenId, "https://nuls.io/token/" + tokenId);
+    }
+
+    @Override
+    public void mintRange(Address to, BigInteger startId, int count) {
+        mintRangeBase(to, startId, count);
+    }
+
+    @Override
+    public void burn(BigInteger tokenId) {
+        burnBase(tokenId);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.math.BigInteger;
+
+/**
+ * Adds the enumeration queries on top of the NRC721Base operations.
+ */
+public class NRC721EnumerableBenchmark extends AbstractTokenBenchmark<MintableNRC721Enumerable> {
+
+    @Override
+    protected MintableNRC721Enumerable deploy() {
+        return new MintableNRC721Enumerable();
+    }
+
+    @Benchmark
+    public BigInteger tokenByIndex() {
+        int index = nextIndex();
+        return simulator.view(minter, token, () -> token.tokenByIndex(index));
+    }
+
+    @Benchmark
+    public BigInteger tokenOfOwnerByIndex() {
+        Address owner = holders[nextIndex() % HOLDERS];
+        int index = nextIndex() % (tokens / HOLDERS);
+        return simulator.view(owner, token, () -> token.tokenOfOwnerByIndex(owner, index));
+    }
+}
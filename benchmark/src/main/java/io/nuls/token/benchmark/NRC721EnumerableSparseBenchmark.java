@@ -0,0 +1,43 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import java.math.BigInteger;
+
+/**
+ * Same as NRC721EnumerableBenchmark with scattered token ids, so that no two tokens share a run of the
+ * global enumeration and every mint or burn inserts or deletes a run.
+ */
+public class NRC721EnumerableSparseBenchmark extends NRC721EnumerableBenchmark {
+
+    private static final long SCATTER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Multiplying by an odd constant is a bijection modulo 2^63, so the ids stay distinct
+     */
+    @Override
+    protected BigInteger tokenId(long i) {
+        return BigInteger.valueOf(i * SCATTER & Long.MAX_VALUE);
+    }
+}
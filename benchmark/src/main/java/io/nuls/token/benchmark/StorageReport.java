@@ -0,0 +1,97 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.token.base.NRC721ReceiverBase;
+import io.nuls.token.simulator.ContractSimulator;
+import io.nuls.token.simulator.StorageMeter;
+
+import java.math.BigInteger;
+
+/**
+ * Prints the average collection gets/puts/removes, events and cross-contract calls of each public entry point of
+ * NRC721FullBase and NRC721ReceiverBase.
+ * <p>Run with `java -cp target/benchmarks.jar io.nuls.token.benchmark.StorageReport [tokens]`.</p>
+ */
+public class StorageReport {
+
+    private static final int HOLDERS = 100;
+
+    public static void main(String[] args) {
+        int tokens = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        ContractSimulator simulator = ContractSimulator.reset();
+        simulator.setRecordEvents(false);
+        Address minter = simulator.newAddress();
+        Address[] holders = new Address[HOLDERS];
+        for (int i = 0; i < HOLDERS; i++) {
+            holders[i] = simulator.newAddress();
+        }
+        MintableNRC721Full token = simulator.deploy(minter, MintableNRC721Full::new);
+        NRC721ReceiverBase receiver = simulator.deploy(minter, NRC721ReceiverBase::new);
+        Address receiverAddress = simulator.addressOf(receiver);
+        Address tokenAddress = simulator.addressOf(token);
+
+        StorageMeter meter = simulator.meter();
+        meter.instrument(token);
+        meter.instrument(receiver);
+
+        // token i goes to holder i % HOLDERS, then every holder hands its tokens on to the next one
+        for (int i = 0; i < tokens; i++) {
+            BigInteger tokenId = BigInteger.valueOf(i);
+            Address holder = holders[i % HOLDERS];
+            simulator.call(minter, token, "mint", () -> token.mint(holder, tokenId));
+        }
+        for (int i = 0; i < tokens; i++) {
+            BigInteger tokenId = BigInteger.valueOf(i);
+            Address from = holders[i % HOLDERS];
+            Address to = holders[(i + 1) % HOLDERS];
+            simulator.view(from, token, "balanceOf", () -> token.balanceOf(from));
+            simulator.view(from, token, "ownerOf", () -> token.ownerOf(tokenId));
+            simulator.view(from, token, "tokenURI", () -> token.tokenURI(tokenId));
+            simulator.view(from, token, "tokenByIndex", () -> token.tokenByIndex(tokenId.intValue()));
+            simulator.view(from, token, "tokenOfOwnerByIndex", () -> token.tokenOfOwnerByIndex(from, 0));
+            simulator.call(from, token, "approve", () -> token.approve(to, tokenId));
+            simulator.call(to, token, "transferFrom", () -> token.transferFrom(from, to, tokenId));
+        }
+        for (int i = 0; i < HOLDERS; i++) {
+            Address owner = holders[i];
+            Address operator = holders[(i + 1) % HOLDERS];
+            simulator.call(owner, token, "setApprovalForAll", () -> token.setApprovalForAll(operator, true));
+            simulator.view(owner, token, "isApprovedForAll", () -> token.isApprovedForAll(owner, operator));
+        }
+        for (int i = 0; i < tokens; i += 2) {
+            BigInteger tokenId = BigInteger.valueOf(i);
+            Address from = holders[(i + 1) % HOLDERS];
+            simulator.call(from, token, "safeTransferFrom", () -> token.safeTransferFrom(from, receiverAddress, tokenId));
+            Address to = holders[i % HOLDERS];
+            simulator.call(minter, receiver, "transferOtherNRC721", () -> receiver.transferOtherNRC721(tokenAddress, to, tokenId));
+        }
+        for (int i = 0; i < tokens; i += 2) {
+            BigInteger tokenId = BigInteger.valueOf(i);
+            simulator.call(minter, token, "burn", () -> token.burn(tokenId));
+        }
+        System.out.print(meter.report());
+    }
+}
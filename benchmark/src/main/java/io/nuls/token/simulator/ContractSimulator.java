@@ -0,0 +1,293 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.simulator;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Event;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs contracts in-process: keeps the call frames behind `Msg`, the deployed contracts behind
+ * `Address.isContract`/`Address.call`, and the events sent through `Utils.emit`.
+ * <p>State is not rolled back when a call reverts, and gas is not metered: `meter()` counts collection accesses,
+ * events and cross-contract calls per entry point instead.</p>
+ */
+public class ContractSimulator {
+
+    private static ContractSimulator current = new ContractSimulator();
+
+    private final Map<Address, Object> contracts = new HashMap<Address, Object>();
+    private final Map<Object, Address> contractAddresses = new IdentityHashMap<Object, Address>();
+    private final Deque<Frame> frames = new ArrayDeque<Frame>();
+    private final List<Event> events = new ArrayList<Event>();
+    private boolean recordEvents = true;
+    private StorageMeter meter;
+    private long emittedEvents;
+    private int addressSequence;
+
+    public static ContractSimulator current() {
+        return current;
+    }
+
+    /**
+     * Replaces the current simulator by an empty one.
+     */
+    public static ContractSimulator reset() {
+        current = new ContractSimulator();
+        return current;
+    }
+
+    public Address newAddress() {
+        return new Address("tNULSeBaMsimulator" + (++addressSequence));
+    }
+
+    /**
+     * Deploys a contract at a new address, `creator` being `Msg.sender()` during the constructor.
+     */
+    public <T> T deploy(Address creator, Supplier<T> constructor) {
+        Address contractAddress = newAddress();
+        frames.push(new Frame(creator, contractAddress));
+        try {
+            T contract = constructor.get();
+            contracts.put(contractAddress, contract);
+            contractAddresses.put(contract, contractAddress);
+            return contract;
+        } finally {
+            frames.pop();
+        }
+    }
+
+    public Address addressOf(Object contract) {
+        Address address = contractAddresses.get(contract);
+        if (address == null) {
+            throw new IllegalArgumentException("not deployed in this simulator");
+        }
+        return address;
+    }
+
+    /**
+     * Calls a method of `contract` as a transaction sent by `sender`.
+     */
+    public void call(Address sender, Object contract, Runnable method) {
+        call(sender, contract, null, method);
+    }
+
+    /**
+     * Same as `call`, counting the storage work of `method` under `entryPoint` when a meter is attached.
+     */
+    public void call(Address sender, Object contract, String entryPoint, Runnable method) {
+        enter(sender, contract, entryPoint);
+        try {
+            method.run();
+        } finally {
+            leave(entryPoint);
+        }
+    }
+
+    /**
+     * Calls a view method of `contract` on behalf of `sender`.
+     */
+    public <R> R view(Address sender, Object contract, Supplier<R> method) {
+        return view(sender, contract, null, method);
+    }
+
+    /**
+     * Same as `view`, counting the storage work of `method` under `entryPoint` when a meter is attached.
+     */
+    public <R> R view(Address sender, Object contract, String entryPoint, Supplier<R> method) {
+        enter(sender, contract, entryPoint);
+        try {
+            return method.get();
+        } finally {
+            leave(entryPoint);
+        }
+    }
+
+    /**
+     * @return the storage meter of this simulator, created on first use; contracts still have to be
+     * passed to `StorageMeter.instrument`
+     */
+    public StorageMeter meter() {
+        if (meter == null) {
+            meter = new StorageMeter();
+        }
+        return meter;
+    }
+
+    public Address sender() {
+        return currentFrame().sender;
+    }
+
+    public Address contractAddress() {
+        return currentFrame().contractAddress;
+    }
+
+    public boolean isContract(Address address) {
+        return contracts.containsKey(address);
+    }
+
+    /**
+     * Cross-contract call from the current contract: the arguments use the VM's `String[][]` encoding.
+     */
+    public Object invoke(Address target, String methodName, String[][] args) {
+        Object contract = contracts.get(target);
+        if (contract == null) {
+            throw new RevertException("[" + target + "] is not contract address");
+        }
+        Method method = findMethod(contract.getClass(), methodName, args.length);
+        Object[] parameters = new Object[args.length];
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < args.length; i++) {
+            parameters[i] = convert(args[i], types[i]);
+        }
+        if (meter != null) {
+            meter.call();
+        }
+        frames.push(new Frame(contractAddress(), target));
+        try {
+            return method.invoke(contract, parameters);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            frames.pop();
+        }
+    }
+
+    public void emit(Event event) {
+        emittedEvents++;
+        if (meter != null) {
+            meter.emit();
+        }
+        if (recordEvents) {
+            events.add(event);
+        }
+    }
+
+    /**
+     * Long benchmark runs should turn recording off, emitted events are still counted.
+     */
+    public void setRecordEvents(boolean recordEvents) {
+        this.recordEvents = recordEvents;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public long getEmittedEvents() {
+        return emittedEvents;
+    }
+
+    private void enter(Address sender, Object contract, String entryPoint) {
+        if (meter != null && entryPoint != null && frames.isEmpty()) {
+            meter.enter(entryPoint);
+        }
+        frames.push(new Frame(sender, addressOf(contract)));
+    }
+
+    private void leave(String entryPoint) {
+        frames.pop();
+        if (meter != null && entryPoint != null && frames.isEmpty()) {
+            meter.exit();
+        }
+    }
+
+    private Frame currentFrame() {
+        Frame frame = frames.peek();
+        if (frame == null) {
+            throw new IllegalStateException("no contract call in progress");
+        }
+        return frame;
+    }
+
+    private static Method findMethod(Class<?> type, String name, int parameterCount) {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterTypes().length == parameterCount) {
+                return method;
+            }
+        }
+        throw new RevertException("method [" + name + "] not found");
+    }
+
+    private static Object convert(String[] values, Class<?> type) {
+        if (type.isArray()) {
+            Class<?> componentType = type.getComponentType();
+            Object array = Array.newInstance(componentType, values.length);
+            for (int i = 0; i < values.length; i++) {
+                Array.set(array, i, convert(values[i], componentType));
+            }
+            return array;
+        }
+        return convert(values.length == 0 ? null : values[0], type);
+    }
+
+    private static Object convert(String value, Class<?> type) {
+        if (value == null || type == String.class) {
+            return value;
+        }
+        if (type == Address.class) {
+            return new Address(value);
+        }
+        if (type == BigInteger.class) {
+            return new BigInteger(value);
+        }
+        if (type == int.class || type == Integer.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == long.class || type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Boolean.valueOf(value);
+        }
+        throw new IllegalArgumentException("unsupported parameter type " + type.getName());
+    }
+
+    private static class Frame {
+        private final Address sender;
+        private final Address contractAddress;
+
+        private Frame(Address sender, Address contractAddress) {
+            this.sender = sender;
+            this.contractAddress = contractAddress;
+        }
+    }
+}
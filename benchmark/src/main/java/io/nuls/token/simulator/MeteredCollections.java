@@ -0,0 +1,542 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.simulator;
+
+import io.nuls.token.model.LongArrayList;
+import io.nuls.token.model.LongHashMap;
+import io.nuls.token.model.LongIntHashMap;
+import io.nuls.token.model.LongRangeSet;
+import io.nuls.token.model.NRC721TokenRecord;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Metered equivalents of the collections the base classes keep their state in, used by StorageMeter.
+ */
+final class MeteredCollections {
+
+    private MeteredCollections() {
+    }
+
+    /**
+     * @return a metered copy of `value`, or `value` itself if it is not a collection that can be metered
+     */
+    @SuppressWarnings("unchecked")
+    static Object metered(StorageMeter meter, Object value, Class<?> fieldType) throws IllegalAccessException {
+        Class<?> type = value.getClass();
+        if (type == LongHashMap.class) {
+            return copyState(value, new MeteredLongHashMap<Object>(meter));
+        }
+        if (type == LongIntHashMap.class) {
+            return copyState(value, new MeteredLongIntHashMap(meter));
+        }
+        if (type == LongArrayList.class) {
+            return copyState(value, new MeteredLongArrayList(meter));
+        }
+        if (type == LongRangeSet.class) {
+            return copyState(value, new MeteredLongRangeSet(meter));
+        }
+        if (type == NRC721TokenRecord.class) {
+            return copyState(value, new MeteredTokenRecord(meter));
+        }
+        if (type == LinkedList.class) {
+            return new MeteredLinkedList<Object>(meter, (LinkedList<Object>) value);
+        }
+        if (type == ArrayList.class) {
+            return new MeteredArrayList<Object>(meter, (ArrayList<Object>) value);
+        }
+        if (fieldType == Map.class && value instanceof Map) {
+            return new MeteredMap<Object, Object>(meter, (Map<Object, Object>) value);
+        }
+        if (fieldType == Set.class && value instanceof Set) {
+            return new MeteredSet<Object>(meter, (Set<Object>) value);
+        }
+        return value;
+    }
+
+    /**
+     * Copies the fields `source` declares (up to Object) into `target`, a subclass instance of the same type.
+     */
+    private static <T> T copyState(Object source, T target) throws IllegalAccessException {
+        for (Class<?> type = source.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    field.set(target, field.get(source));
+                }
+            }
+        }
+        return target;
+    }
+
+    static class MeteredLongHashMap<V> extends LongHashMap<V> {
+        private final StorageMeter meter;
+
+        MeteredLongHashMap(StorageMeter meter) {
+            this.meter = meter;
+        }
+
+        @Override
+        public boolean containsKey(long key) {
+            meter.get();
+            return super.containsKey(key);
+        }
+
+        /**
+         * Swaps a token record or page read from the map for a metered copy, so that the edits made through it count
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(long key) {
+            meter.get();
+            V value = super.get(key);
+            if (value == null) {
+                return null;
+            }
+            try {
+                V metered = (V) MeteredCollections.metered(meter, value, Object.class);
+                if (metered != value) {
+                    super.put(key, metered);
+                }
+                return metered;
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public V put(long key, V value) {
+            meter.put();
+            return super.put(key, value);
+        }
+
+        @Override
+        public V remove(long key) {
+            meter.remove();
+            return super.remove(key);
+        }
+    }
+
+    static class MeteredLongIntHashMap extends LongIntHashMap {
+        private final StorageMeter meter;
+
+        MeteredLongIntHashMap(StorageMeter meter) {
+            this.meter = meter;
+        }
+
+        @Override
+        public boolean containsKey(long key) {
+            meter.get();
+            return super.containsKey(key);
+        }
+
+        @Override
+        public int get(long key) {
+            meter.get();
+            return super.get(key);
+        }
+
+        @Override
+        public int put(long key, int value) {
+            if (value == 0) {
+                return remove(key);
+            }
+            meter.put();
+            return super.put(key, value);
+        }
+
+        @Override
+        public int add(long key, int delta) {
+            meter.put();
+            return super.add(key, delta);
+        }
+
+        @Override
+        public int remove(long key) {
+            meter.remove();
+            return super.remove(key);
+        }
+    }
+
+    static class MeteredLongArrayList extends LongArrayList {
+        private final StorageMeter meter;
+
+        MeteredLongArrayList(StorageMeter meter) {
+            this.meter = meter;
+        }
+
+        @Override
+        public long get(int index) {
+            meter.get();
+            return super.get(index);
+        }
+
+        @Override
+        public long set(int index, long value) {
+            meter.put();
+            return super.set(index, value);
+        }
+
+        @Override
+        public void add(long value) {
+            meter.put();
+            super.add(value);
+        }
+
+        @Override
+        public long removeLast() {
+            meter.remove();
+            return super.removeLast();
+        }
+    }
+
+    static class MeteredLongRangeSet extends LongRangeSet {
+        private final StorageMeter meter;
+
+        MeteredLongRangeSet(StorageMeter meter) {
+            this.meter = meter;
+        }
+
+        @Override
+        public boolean contains(long value) {
+            meter.get();
+            return super.contains(value);
+        }
+
+        @Override
+        public long get(int index) {
+            meter.get();
+            return super.get(index);
+        }
+
+        @Override
+        public void addRange(long start, int count) {
+            meter.put();
+            super.addRange(start, count);
+        }
+
+        @Override
+        public boolean remove(long value) {
+            meter.remove();
+            return super.remove(value);
+        }
+    }
+
+    static class MeteredTokenRecord extends NRC721TokenRecord {
+        private final StorageMeter meter;
+
+        MeteredTokenRecord(StorageMeter meter) {
+            this.meter = meter;
+        }
+
+        @Override
+        public void setOwnerId(int ownerId) {
+            meter.put();
+            super.setOwnerId(ownerId);
+        }
+
+        @Override
+        public void setRun(int run) {
+            meter.put();
+            super.setRun(run);
+        }
+
+        @Override
+        public void setApprovedId(int approvedId) {
+            meter.put();
+            super.setApprovedId(approvedId);
+        }
+
+        @Override
+        public void setOwnedTokensIndex(int ownedTokensIndex) {
+            meter.put();
+            super.setOwnedTokensIndex(ownedTokensIndex);
+        }
+
+        @Override
+        public void setTokenURIRef(int tokenURIRef) {
+            meter.put();
+            super.setTokenURIRef(tokenURIRef);
+        }
+    }
+
+    static class MeteredLinkedList<E> extends LinkedList<E> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient StorageMeter meter;
+
+        MeteredLinkedList(StorageMeter meter, Collection<E> content) {
+            super(content);
+            this.meter = meter;
+        }
+
+        @Override
+        public E get(int index) {
+            meter.get();
+            return super.get(index);
+        }
+
+        @Override
+        public E set(int index, E element) {
+            meter.put();
+            return super.set(index, element);
+        }
+
+        @Override
+        public boolean add(E element) {
+            meter.put();
+            return super.add(element);
+        }
+
+        @Override
+        public void add(int index, E element) {
+            meter.put();
+            super.add(index, element);
+        }
+
+        @Override
+        public E remove(int index) {
+            meter.remove();
+            return super.remove(index);
+        }
+
+        @Override
+        public boolean remove(Object element) {
+            meter.remove();
+            return super.remove(element);
+        }
+
+        @Override
+        public E removeLast() {
+            meter.remove();
+            return super.removeLast();
+        }
+    }
+
+    static class MeteredArrayList<E> extends ArrayList<E> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient StorageMeter meter;
+
+        MeteredArrayList(StorageMeter meter, Collection<E> content) {
+            super(content);
+            this.meter = meter;
+        }
+
+        @Override
+        public E get(int index) {
+            meter.get();
+            return super.get(index);
+        }
+
+        @Override
+        public E set(int index, E element) {
+            meter.put();
+            return super.set(index, element);
+        }
+
+        @Override
+        public boolean add(E element) {
+            meter.put();
+            return super.add(element);
+        }
+
+        @Override
+        public void add(int index, E element) {
+            meter.put();
+            super.add(index, element);
+        }
+
+        @Override
+        public E remove(int index) {
+            meter.remove();
+            return super.remove(index);
+        }
+
+        @Override
+        public boolean remove(Object element) {
+            meter.remove();
+            return super.remove(element);
+        }
+    }
+
+    static class MeteredMap<K, V> implements Map<K, V> {
+        private final StorageMeter meter;
+        private final Map<K, V> delegate;
+
+        MeteredMap(StorageMeter meter, Map<K, V> delegate) {
+            this.meter = meter;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public V get(Object key) {
+            meter.get();
+            return delegate.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            meter.get();
+            return delegate.containsKey(key);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            meter.put();
+            return delegate.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            meter.remove();
+            return delegate.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return delegate.isEmpty();
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return delegate.containsValue(value);
+        }
+
+        @Override
+        public void putAll(Map<? extends K, ? extends V> m) {
+            delegate.putAll(m);
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return delegate.keySet();
+        }
+
+        @Override
+        public Collection<V> values() {
+            return delegate.values();
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return delegate.entrySet();
+        }
+    }
+
+    static class MeteredSet<E> implements Set<E> {
+        private final StorageMeter meter;
+        private final Set<E> delegate;
+
+        MeteredSet(StorageMeter meter, Set<E> delegate) {
+            this.meter = meter;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            meter.get();
+            return delegate.contains(o);
+        }
+
+        @Override
+        public boolean add(E e) {
+            meter.put();
+            return delegate.add(e);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            meter.remove();
+            return delegate.remove(o);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return delegate.isEmpty();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return delegate.iterator();
+        }
+
+        @Override
+        public Object[] toArray() {
+            return delegate.toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a) {
+            return delegate.toArray(a);
+        }
+
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            return delegate.containsAll(c);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> c) {
+            return delegate.addAll(c);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            return delegate.retainAll(c);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            return delegate.removeAll(c);
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+    }
+}
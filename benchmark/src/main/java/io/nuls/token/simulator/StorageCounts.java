@@ -0,0 +1,74 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.simulator;
+
+/**
+ * Storage and event work done by one entry point, summed over its invocations.
+ */
+public class StorageCounts {
+
+    long invocations;
+    long gets;
+    long puts;
+    long removes;
+    long emits;
+    long calls;
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getGets() {
+        return gets;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public long getRemoves() {
+        return removes;
+    }
+
+    public long getEmits() {
+        return emits;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        sb.append("\"invocations\":").append(invocations);
+        sb.append(",\"gets\":").append(gets);
+        sb.append(",\"puts\":").append(puts);
+        sb.append(",\"removes\":").append(removes);
+        sb.append(",\"emits\":").append(emits);
+        sb.append(",\"calls\":").append(calls);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.simulator;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts collection gets/puts/removes, emitted events and cross-contract calls per public entry point.
+ * <p>`instrument` swaps the collections held in a contract's fields (and in the fields of the io.nuls.token.model
+ * objects it holds) for metered equivalents, so the contract code itself is left untouched. The token records and
+ * owner pages stored in a LongHashMap are swapped for metered copies when they are read, so their setters and page
+ * edits count as puts. A value put into a map is counted once by that put, edits made to it before it is read back
+ * are not counted separately.</p>
+ */
+public class StorageMeter {
+
+    private static final String MODEL_PACKAGE = "io.nuls.token.model.";
+
+    private final Map<String, StorageCounts> counts = new TreeMap<String, StorageCounts>();
+    private StorageCounts current;
+
+    /**
+     * Replaces the collections of `contract` by metered ones, keeping their content.
+     */
+    public void instrument(Object contract) {
+        try {
+            instrumentFields(contract);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public StorageCounts get(String entryPoint) {
+        StorageCounts entryCounts = counts.get(entryPoint);
+        return entryCounts == null ? new StorageCounts() : entryCounts;
+    }
+
+    public Map<String, StorageCounts> getAll() {
+        return counts;
+    }
+
+    public void reset() {
+        counts.clear();
+    }
+
+    /**
+     * @return one line per entry point with the average work of one invocation
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %10s %10s %10s %10s %10s %10s%n", "entry point", "calls", "gets", "puts", "removes", "emits", "x-calls"));
+        for (Map.Entry<String, StorageCounts> entry : counts.entrySet()) {
+            StorageCounts c = entry.getValue();
+            double n = c.invocations;
+            sb.append(String.format("%-28s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), c.invocations,
+                    c.gets / n, c.puts / n, c.removes / n, c.emits / n, c.calls / n));
+        }
+        return sb.toString();
+    }
+
+    void enter(String entryPoint) {
+        current = counts.get(entryPoint);
+        if (current == null) {
+            current = new StorageCounts();
+            counts.put(entryPoint, current);
+        }
+        current.invocations++;
+    }
+
+    void exit() {
+        current = null;
+    }
+
+    void get() {
+        if (current != null) {
+            current.gets++;
+        }
+    }
+
+    void put() {
+        if (current != null) {
+            current.puts++;
+        }
+    }
+
+    void remove() {
+        if (current != null) {
+            current.removes++;
+        }
+    }
+
+    void emit() {
+        if (current != null) {
+            current.emits++;
+        }
+    }
+
+    void call() {
+        if (current != null) {
+            current.calls++;
+        }
+    }
+
+    private void instrumentFields(Object target) throws IllegalAccessException {
+        for (Class<?> type = target.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object value = field.get(target);
+                if (value == null) {
+                    continue;
+                }
+                Object metered = MeteredCollections.metered(this, value, field.getType());
+                if (metered != value) {
+                    field.set(target, metered);
+                } else if (value.getClass().getName().startsWith(MODEL_PACKAGE)) {
+                    instrumentFields(value);
+                }
+            }
+        }
+    }
+}
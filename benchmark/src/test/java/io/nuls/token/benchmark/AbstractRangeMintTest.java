@@ -0,0 +1,224 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Event;
+import io.nuls.token.base.NRC721Base;
+import io.nuls.token.interfaces.INRC721;
+import io.nuls.token.simulator.ContractSimulator;
+import io.nuls.token.simulator.RevertException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Splits the ranges minted by `mintRangeBase` in every way a single token can leave one, and checks the owner of
+ * every token around the split.
+ */
+public abstract class AbstractRangeMintTest<T extends NRC721Base & MintableToken> {
+
+    /**
+     * NRC721Base.MAX_MINT_RANGE
+     */
+    protected static final int MAX_MINT_RANGE = 500;
+
+    protected ContractSimulator simulator;
+    protected T token;
+    protected Address minter;
+    protected Address alice;
+    protected Address bob;
+    protected Address carol;
+
+    protected abstract T deploy();
+
+    @Before
+    public void setUp() {
+        simulator = ContractSimulator.reset();
+        minter = simulator.newAddress();
+        alice = simulator.newAddress();
+        bob = simulator.newAddress();
+        carol = simulator.newAddress();
+        token = simulator.deploy(minter, this::deploy);
+        // tokens 10 to 19
+        mintRange(alice, 10, 10);
+    }
+
+    @Test
+    public void rangeMintEmitsOneEvent() {
+        INRC721.TransferRange event = lastEvent(INRC721.TransferRange.class);
+        assertNull(event.getFrom());
+        assertEquals(alice, event.getTo());
+        assertEquals(id(10), event.getStartTokenId());
+        assertEquals(10, event.getCount());
+        assertEquals(1, simulator.getEvents().size());
+    }
+
+    @Test
+    public void transferFirstMiddleAndLast() {
+        for (long tokenId : new long[]{10, 15, 19}) {
+            simulator.call(alice, token, () -> token.transferFrom(alice, bob, id(tokenId)));
+        }
+        assertOwned(alice, 11, 12, 13, 14, 16, 17, 18);
+        assertOwned(bob, 10, 15, 19);
+        assertMissing(9, 20);
+    }
+
+    @Test
+    public void burnFirstMiddleAndLast() {
+        for (long tokenId : new long[]{10, 15, 19}) {
+            simulator.call(minter, token, () -> token.burn(id(tokenId)));
+        }
+        assertOwned(alice, 11, 12, 13, 14, 16, 17, 18);
+        assertMissing(9, 10, 15, 19, 20);
+    }
+
+    @Test
+    public void approveFirstMiddleAndLast() {
+        for (long tokenId : new long[]{10, 15, 19}) {
+            simulator.call(alice, token, () -> token.approve(carol, id(tokenId)));
+        }
+        for (long tokenId = 10; tokenId < 20; tokenId++) {
+            boolean approved = tokenId == 10 || tokenId == 15 || tokenId == 19;
+            assertEquals(approved ? carol : null, token.getApproved(id(tokenId)));
+        }
+        assertOwned(alice, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+
+        simulator.call(carol, token, () -> token.transferFrom(alice, carol, id(15)));
+        assertOwned(alice, 10, 11, 12, 13, 14, 16, 17, 18, 19);
+        assertOwned(carol, 15);
+        assertNull(token.getApproved(id(15)));
+        try {
+            simulator.call(carol, token, () -> token.transferFrom(alice, carol, id(16)));
+            fail("transfer of a token that is not approved");
+        } catch (RevertException e) {
+            assertEquals("NRC721: transfer caller is not owner nor approved", e.getMessage());
+        }
+    }
+
+    @Test
+    public void remintBurnedMembers() {
+        for (long tokenId : new long[]{10, 15, 19}) {
+            simulator.call(minter, token, () -> token.burn(id(tokenId)));
+            simulator.call(minter, token, () -> token.mint(bob, id(tokenId)));
+        }
+        assertOwned(alice, 11, 12, 13, 14, 16, 17, 18);
+        assertOwned(bob, 10, 15, 19);
+        try {
+            simulator.call(minter, token, () -> token.mint(bob, id(12)));
+            fail("mint of a range member");
+        } catch (RevertException e) {
+            assertEquals("NRC721: token already minted", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rangeOfMaximumSize() {
+        mintRange(bob, 100, MAX_MINT_RANGE);
+        mintRange(carol, 100 + MAX_MINT_RANGE, MAX_MINT_RANGE);
+        assertEquals(bob, token.ownerOf(id(100)));
+        assertEquals(bob, token.ownerOf(id(99 + MAX_MINT_RANGE)));
+        assertEquals(carol, token.ownerOf(id(100 + MAX_MINT_RANGE)));
+        assertEquals(carol, token.ownerOf(id(99 + 2 * MAX_MINT_RANGE)));
+        assertMissing(99, 100 + 2 * MAX_MINT_RANGE);
+        assertEquals(MAX_MINT_RANGE, token.balanceOf(bob));
+
+        long last = 99 + MAX_MINT_RANGE;
+        simulator.call(bob, token, () -> token.transferFrom(bob, alice, id(last)));
+        assertEquals(alice, token.ownerOf(id(last)));
+        assertEquals(bob, token.ownerOf(id(last - 1)));
+        assertEquals(carol, token.ownerOf(id(last + 1)));
+
+        assertMintRangeReverts(1000, MAX_MINT_RANGE + 1, "NRC721: invalid mint range size");
+        assertMintRangeReverts(1000, 0, "NRC721: invalid mint range size");
+        assertMintRangeReverts(5, 10, "NRC721: token already minted");
+        assertMintRangeReverts(19, 2, "NRC721: token already minted");
+    }
+
+    @Test
+    public void batchTransferAcrossASplitRange() {
+        simulator.call(alice, token, () -> token.transferFrom(alice, bob, id(13)));
+        BigInteger[] tokenIds = new BigInteger[]{id(12), id(14), id(19), id(10)};
+        simulator.call(alice, token, () -> token.batchTransferFrom(alice, carol, tokenIds));
+        INRC721.TransferBatch event = lastEvent(INRC721.TransferBatch.class);
+        assertEquals(alice, event.getFrom());
+        assertEquals(carol, event.getTo());
+        assertArrayEquals(tokenIds, event.getTokenIds());
+
+        assertOwned(alice, 11, 15, 16, 17, 18);
+        assertOwned(bob, 13);
+        assertOwned(carol, 10, 12, 14, 19);
+    }
+
+    /**
+     * Checks that `owner` owns exactly `tokenIds`.
+     */
+    protected void assertOwned(Address owner, long... tokenIds) {
+        for (long tokenId : tokenIds) {
+            assertEquals("owner of " + tokenId, owner, token.ownerOf(id(tokenId)));
+        }
+        assertEquals(tokenIds.length, token.balanceOf(owner));
+    }
+
+    protected void assertMissing(long... tokenIds) {
+        for (long tokenId : tokenIds) {
+            try {
+                token.ownerOf(id(tokenId));
+                fail("token " + tokenId + " exists");
+            } catch (RevertException e) {
+                assertEquals("NRC721: owner query for nonexistent token", e.getMessage());
+            }
+        }
+    }
+
+    protected <E extends Event> E lastEvent(Class<E> type) {
+        Event event = simulator.getEvents().get(simulator.getEvents().size() - 1);
+        assertTrue(event.getClass().getName(), type.isInstance(event));
+        return type.cast(event);
+    }
+
+    protected static BigInteger id(long tokenId) {
+        return BigInteger.valueOf(tokenId);
+    }
+
+    private void mintRange(Address to, long startId, int count) {
+        simulator.call(minter, token, () -> token.mintRange(to, id(startId), count));
+    }
+
+    private void assertMintRangeReverts(long startId, int count, String message) {
+        try {
+            mintRange(alice, startId, count);
+            fail("range of " + count + " from " + startId + " minted");
+        } catch (RevertException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
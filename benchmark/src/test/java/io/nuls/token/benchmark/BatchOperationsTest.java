@@ -0,0 +1,212 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Event;
+import io.nuls.token.base.NRC721ReceiverBase;
+import io.nuls.token.interfaces.INRC721;
+import io.nuls.token.interfaces.INRC721TokenReceiver;
+import io.nuls.token.simulator.ContractSimulator;
+import io.nuls.token.simulator.RevertException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks `batchApprove`, `batchTransferFrom` and `safeBatchTransferFrom` of NRC721Base, and the single event each
+ * batch emits.
+ */
+public class BatchOperationsTest {
+
+    private ContractSimulator simulator;
+    private MintableNRC721 token;
+    private Address minter;
+    private Address alice;
+    private Address bob;
+    private Address carol;
+
+    @Before
+    public void setUp() {
+        simulator = ContractSimulator.reset();
+        minter = simulator.newAddress();
+        alice = simulator.newAddress();
+        bob = simulator.newAddress();
+        carol = simulator.newAddress();
+        token = simulator.deploy(minter, MintableNRC721::new);
+        for (long tokenId = 1; tokenId <= 4; tokenId++) {
+            BigInteger id = id(tokenId);
+            simulator.call(minter, token, () -> token.mint(alice, id));
+        }
+        BigInteger bobs = id(5);
+        simulator.call(minter, token, () -> token.mint(bob, bobs));
+        simulator.getEvents().clear();
+    }
+
+    @Test
+    public void batchApproveEmitsOneEvent() {
+        BigInteger[] tokenIds = ids(1, 3, 4);
+        simulator.call(alice, token, () -> token.batchApprove(carol, tokenIds));
+        assertEquals(carol, token.getApproved(id(1)));
+        assertNull(token.getApproved(id(2)));
+        assertEquals(carol, token.getApproved(id(3)));
+        assertEquals(carol, token.getApproved(id(4)));
+
+        INRC721.ApprovalBatch event = onlyEvent(INRC721.ApprovalBatch.class);
+        assertEquals(alice, event.getOwner());
+        assertEquals(carol, event.getApproved());
+        assertArrayEquals(ids(1, 3, 4), event.getTokenIds());
+    }
+
+    @Test
+    public void batchApproveOfTwoOwners() {
+        assertReverts(alice, "NRC721: batch approval of tokens of different owners",
+                () -> token.batchApprove(carol, ids(1, 5)));
+        // the first token decides the owner
+        assertReverts(alice, "NRC721: approve caller is not owner nor approved for all",
+                () -> token.batchApprove(carol, ids(5, 1)));
+        assertReverts(alice, "NRC721: empty batch", () -> token.batchApprove(carol, ids()));
+    }
+
+    @Test
+    public void batchTransferEmitsOneEvent() {
+        simulator.call(alice, token, () -> token.batchTransferFrom(alice, bob, ids(2, 4)));
+        assertEquals(bob, token.ownerOf(id(2)));
+        assertEquals(bob, token.ownerOf(id(4)));
+        assertEquals(2, token.balanceOf(alice));
+        assertEquals(3, token.balanceOf(bob));
+
+        INRC721.TransferBatch event = onlyEvent(INRC721.TransferBatch.class);
+        assertEquals(alice, event.getFrom());
+        assertEquals(bob, event.getTo());
+        assertArrayEquals(ids(2, 4), event.getTokenIds());
+    }
+
+    @Test
+    public void batchTransferOfApprovedTokens() {
+        simulator.call(alice, token, () -> token.batchApprove(carol, ids(1, 2)));
+        simulator.call(carol, token, () -> token.batchTransferFrom(alice, carol, ids(2, 1)));
+        assertEquals(carol, token.ownerOf(id(1)));
+        assertEquals(carol, token.ownerOf(id(2)));
+        // the approvals go with the tokens
+        assertNull(token.getApproved(id(1)));
+        assertNull(token.getApproved(id(2)));
+    }
+
+    @Test
+    public void batchTransferWithSomeTokensApproved() {
+        simulator.call(alice, token, () -> token.approve(carol, id(1)));
+        assertReverts(carol, "NRC721: transfer caller is not owner nor approved",
+                () -> token.batchTransferFrom(alice, carol, ids(1, 2)));
+        assertReverts(carol, "NRC721: transfer caller is not owner nor approved",
+                () -> token.batchTransferFrom(alice, carol, ids(3, 1)));
+    }
+
+    @Test
+    public void batchTransferWithoutApproval() {
+        assertReverts(carol, "NRC721: transfer caller is not owner nor approved",
+                () -> token.batchTransferFrom(alice, carol, ids(1)));
+        // approved for another owner's tokens only
+        simulator.call(bob, token, () -> token.setApprovalForAll(carol, true));
+        assertReverts(carol, "NRC721: transfer caller is not owner nor approved",
+                () -> token.batchTransferFrom(alice, carol, ids(1)));
+        assertReverts(carol, "NRC721: transfer of token that is not own",
+                () -> token.batchTransferFrom(bob, carol, ids(5, 1)));
+        assertReverts(alice, "NRC721: empty batch", () -> token.batchTransferFrom(alice, bob, ids()));
+    }
+
+    @Test
+    public void batchTransferOfARepeatedId() {
+        // to its owner, the id moves twice and the balance does not change
+        simulator.call(alice, token, () -> token.batchTransferFrom(alice, alice, ids(1, 1)));
+        assertEquals(alice, token.ownerOf(id(1)));
+        assertEquals(4, token.balanceOf(alice));
+        // last, as the simulator does not roll a reverted call back
+        assertReverts(alice, "NRC721: transfer of token that is not own",
+                () -> token.batchTransferFrom(alice, bob, ids(1, 2, 1)));
+    }
+
+    @Test
+    public void safeBatchTransferToAContract() {
+        NRC721ReceiverBase receiver = simulator.deploy(minter, NRC721ReceiverBase::new);
+        Address receiverAddress = simulator.addressOf(receiver);
+        simulator.call(alice, token, () -> token.safeBatchTransferFrom(alice, receiverAddress, ids(1, 2)));
+        assertEquals(receiverAddress, token.ownerOf(id(1)));
+        assertEquals(receiverAddress, token.ownerOf(id(2)));
+
+        RejectingReceiver rejecting = simulator.deploy(minter, RejectingReceiver::new);
+        Address rejectingAddress = simulator.addressOf(rejecting);
+        // token 4 is the one rejected, after token 3 was accepted
+        assertReverts(alice, "NRC721: transfer to non NRC721Receiver implementer",
+                () -> token.safeBatchTransferFrom(alice, rejectingAddress, ids(3, 4)));
+        assertEquals(2, rejecting.calls);
+    }
+
+    private <E extends Event> E onlyEvent(Class<E> type) {
+        assertEquals(1, simulator.getEvents().size());
+        Event event = simulator.getEvents().get(0);
+        assertTrue(event.getClass().getName(), type.isInstance(event));
+        return type.cast(event);
+    }
+
+    private void assertReverts(Address sender, String message, Runnable call) {
+        try {
+            simulator.call(sender, token, call);
+            fail(message);
+        } catch (RevertException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static BigInteger id(long tokenId) {
+        return BigInteger.valueOf(tokenId);
+    }
+
+    private static BigInteger[] ids(long... tokenIds) {
+        BigInteger[] result = new BigInteger[tokenIds.length];
+        for (int i = 0; i < tokenIds.length; i++) {
+            result[i] = id(tokenIds[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Accepts the first token it is offered and rejects the others.
+     */
+    public static class RejectingReceiver implements INRC721TokenReceiver {
+        private int calls;
+
+        @Override
+        public boolean onNRC721Received(Address operator, Address from, BigInteger tokenId, String data) {
+            return calls++ == 0;
+        }
+    }
+}
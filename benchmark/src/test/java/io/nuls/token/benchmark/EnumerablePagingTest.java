@@ -0,0 +1,139 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.token.simulator.ContractSimulator;
+import io.nuls.token.simulator.RevertException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the bounds of the `tokens` and `tokensOfOwner` pages of NRC721EnumerableBase, and pages crossing the 64-token
+ * pages the tokens of an owner are stored in.
+ */
+public class EnumerablePagingTest {
+
+    private ContractSimulator simulator;
+    private MintableNRC721Enumerable token;
+    private Address minter;
+    private Address alice;
+    private Address bob;
+
+    @Before
+    public void setUp() {
+        simulator = ContractSimulator.reset();
+        minter = simulator.newAddress();
+        alice = simulator.newAddress();
+        bob = simulator.newAddress();
+        token = simulator.deploy(minter, MintableNRC721Enumerable::new);
+        // 150 tokens over three storage pages, then one for bob
+        simulator.call(minter, token, () -> token.mintRange(alice, id(1000), 150));
+        simulator.call(minter, token, () -> token.mint(bob, id(1)));
+    }
+
+    @Test
+    public void limitOutOfBounds() {
+        for (int limit : new int[]{0, -1, 101}) {
+            assertReverts("NRC721Enumerable: limit must be between 1 and 100", () -> token.tokens(0, limit));
+            assertReverts("NRC721Enumerable: limit must be between 1 and 100", () -> token.tokensOfOwner(alice, 0, limit));
+        }
+        assertReverts("NRC721Enumerable: negative offset", () -> token.tokens(-1, 10));
+        assertReverts("NRC721Enumerable: negative offset", () -> token.tokensOfOwner(alice, -1, 10));
+        assertEquals(100, token.tokens(0, 100).length);
+        assertEquals(100, token.tokensOfOwner(alice, 0, 100).length);
+    }
+
+    @Test
+    public void offsetPastTheEnd() {
+        assertArrayEquals(new BigInteger[]{token.tokenByIndex(150)}, token.tokens(150, 100));
+        assertEquals(0, token.tokens(151, 100).length);
+        assertEquals(0, token.tokens(Integer.MAX_VALUE, 100).length);
+        assertEquals(1, token.tokensOfOwner(alice, 149, 100).length);
+        assertEquals(0, token.tokensOfOwner(alice, 150, 100).length);
+        assertEquals(0, token.tokensOfOwner(bob, 1, 1).length);
+        assertEquals(0, token.tokensOfOwner(simulator.newAddress(), 0, 100).length);
+    }
+
+    @Test
+    public void pagesAcrossStoragePages() {
+        assertPages();
+        // the last token of alice moves to index 10, in the first storage page
+        simulator.call(alice, token, () -> token.transferFrom(alice, bob, tokenOfAlice(10)));
+        assertPages();
+        simulator.call(minter, token, () -> token.burn(tokenOfAlice(64)));
+        assertPages();
+    }
+
+    /**
+     * Checks pages of alice's tokens starting around each storage page boundary against `tokenOfOwnerByIndex`.
+     */
+    private void assertPages() {
+        int balance = token.balanceOf(alice);
+        for (int offset : new int[]{0, 1, 60, 63, 64, 65, 100, 127, 128, balance - 1}) {
+            for (int limit : new int[]{1, 4, 64, 100}) {
+                int length = Math.min(limit, balance - offset);
+                BigInteger[] expected = new BigInteger[length];
+                for (int i = 0; i < length; i++) {
+                    expected[i] = tokenOfAlice(offset + i);
+                }
+                assertArrayEquals("offset " + offset + ", limit " + limit, expected, token.tokensOfOwner(alice, offset, limit));
+            }
+        }
+        // all of them, each once, in two pages
+        Set<BigInteger> tokenIds = new HashSet<>();
+        for (int offset = 0; offset < balance; offset += 100) {
+            for (BigInteger tokenId : token.tokensOfOwner(alice, offset, 100)) {
+                assertEquals(alice, token.ownerOf(tokenId));
+                tokenIds.add(tokenId);
+            }
+        }
+        assertEquals(balance, tokenIds.size());
+    }
+
+    private BigInteger tokenOfAlice(int index) {
+        return token.tokenOfOwnerByIndex(alice, index);
+    }
+
+    private void assertReverts(String message, Runnable call) {
+        try {
+            call.run();
+            fail(message);
+        } catch (RevertException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static BigInteger id(long tokenId) {
+        return BigInteger.valueOf(tokenId);
+    }
+}
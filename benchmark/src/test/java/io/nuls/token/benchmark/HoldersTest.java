@@ -0,0 +1,155 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.token.simulator.ContractSimulator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the holder list of NRC721EnumerableBase as holders leave it: the last holder takes the place of the one that
+ * left, and its index moves with it.
+ */
+public class HoldersTest {
+
+    private ContractSimulator simulator;
+    private MintableNRC721Enumerable token;
+    private Address minter;
+    private Address alice;
+    private Address bob;
+    private Address carol;
+    private Address dave;
+
+    @Before
+    public void setUp() {
+        simulator = ContractSimulator.reset();
+        minter = simulator.newAddress();
+        alice = simulator.newAddress();
+        bob = simulator.newAddress();
+        carol = simulator.newAddress();
+        dave = simulator.newAddress();
+        token = simulator.deploy(minter, MintableNRC721Enumerable::new);
+        mint(token, alice, 1, 2);
+        mint(token, bob, 3, 4);
+        mint(token, carol, 5);
+        mint(token, dave, 6, 7);
+    }
+
+    @Test
+    public void emptyAMiddleHolder() {
+        simulator.call(bob, token, () -> token.transferFrom(bob, carol, id(3)));
+        assertHolders(alice, bob, carol, dave);
+        simulator.call(minter, token, () -> token.burn(id(4)));
+        // dave, the last holder, takes the place of bob
+        assertHolders(alice, dave, carol);
+        assertEquals("0", token.ownershipDigestOf(bob));
+
+        // dave is found at its new index when its tokens change
+        simulator.call(dave, token, () -> token.transferFrom(dave, alice, id(6)));
+        assertDigests(new long[]{1, 2, 6}, new long[]{7}, new long[]{3, 5});
+        simulator.call(dave, token, () -> token.transferFrom(dave, carol, id(7)));
+        // carol, now last, takes the place of dave
+        assertHolders(alice, carol);
+        assertEquals("0", token.ownershipDigestOf(dave));
+        assertEquals("0", token.ownershipDigestOf(bob));
+        assertDigests(new long[]{1, 2, 6}, new long[]{3, 5, 7});
+    }
+
+    @Test
+    public void emptyTheLastHolder() {
+        simulator.call(dave, token, () -> token.batchTransferFrom(dave, bob, ids(6, 7)));
+        assertHolders(alice, bob, carol);
+        // a holder coming back is added at the end
+        simulator.call(bob, token, () -> token.transferFrom(bob, dave, id(7)));
+        assertHolders(alice, bob, carol, dave);
+        assertDigests(new long[]{1, 2}, new long[]{3, 4, 6}, new long[]{5}, new long[]{7});
+    }
+
+    @Test
+    public void emptyTheFirstHolders() {
+        simulator.call(alice, token, () -> token.batchTransferFrom(alice, carol, ids(1, 2)));
+        assertHolders(dave, bob, carol);
+        simulator.call(minter, token, () -> token.burn(id(6)));
+        simulator.call(minter, token, () -> token.burn(id(7)));
+        assertHolders(carol, bob);
+        // pages of the reordered list
+        assertArrayEquals(new Address[]{bob}, token.holders(1, 5));
+        assertArrayEquals(new Address[0], token.holders(2, 5));
+        assertDigests(new long[]{1, 2, 5}, new long[]{3, 4});
+    }
+
+    /**
+     * Checks the holder list, one page at a time.
+     */
+    private void assertHolders(Address... expected) {
+        assertEquals(expected.length, token.holderCount());
+        Address[] holders = new Address[expected.length];
+        for (int i = 0; i < holders.length; i++) {
+            holders[i] = token.holders(i, 1)[0];
+        }
+        assertArrayEquals(expected, holders);
+        assertArrayEquals(expected, token.holders(0, 100));
+    }
+
+    /**
+     * Checks the digest of each holder, in holder order, against the same tokens minted to it.
+     */
+    private void assertDigests(long[]... tokenIds) {
+        Address[] holders = token.holders(0, 100);
+        assertEquals(tokenIds.length, holders.length);
+        MintableNRC721Enumerable expected = simulator.deploy(minter, MintableNRC721Enumerable::new);
+        long sum = 0;
+        for (int i = 0; i < holders.length; i++) {
+            mint(expected, holders[i], tokenIds[i]);
+            assertEquals(expected.ownershipDigestOf(holders[i]), token.ownershipDigestOf(holders[i]));
+            assertEquals(tokenIds[i].length, token.balanceOf(holders[i]));
+            sum += Long.parseUnsignedLong(token.ownershipDigestOf(holders[i]), 16);
+        }
+        assertEquals(Long.toHexString(sum), token.ownershipDigest());
+    }
+
+    private void mint(MintableNRC721Enumerable token, Address to, long... tokenIds) {
+        for (long tokenId : tokenIds) {
+            simulator.call(minter, token, () -> token.mint(to, id(tokenId)));
+        }
+    }
+
+    private static BigInteger id(long tokenId) {
+        return BigInteger.valueOf(tokenId);
+    }
+
+    private static BigInteger[] ids(long... tokenIds) {
+        BigInteger[] result = new BigInteger[tokenIds.length];
+        for (int i = 0; i < tokenIds.length; i++) {
+            result[i] = id(tokenIds[i]);
+        }
+        return result;
+    }
+}
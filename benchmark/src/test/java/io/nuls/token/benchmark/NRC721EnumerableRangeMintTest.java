@@ -0,0 +1,59 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the range splits against NRC721EnumerableBase, checking the owner enumeration as well.
+ */
+public class NRC721EnumerableRangeMintTest extends AbstractRangeMintTest<MintableNRC721Enumerable> {
+
+    @Override
+    protected MintableNRC721Enumerable deploy() {
+        return new MintableNRC721Enumerable();
+    }
+
+    @Override
+    protected void assertOwned(Address owner, long... tokenIds) {
+        super.assertOwned(owner, tokenIds);
+        BigInteger[] expected = new BigInteger[tokenIds.length];
+        for (int i = 0; i < tokenIds.length; i++) {
+            expected[i] = id(tokenIds[i]);
+        }
+        BigInteger[] owned = token.tokensOfOwner(owner, 0, 100);
+        Arrays.sort(expected);
+        Arrays.sort(owned);
+        assertArrayEquals(expected, owned);
+        for (int i = 0; i < tokenIds.length; i++) {
+            assertEquals(owner, token.ownerOf(token.tokenOfOwnerByIndex(owner, i)));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.token.simulator.ContractSimulator;
+import io.nuls.token.simulator.RevertException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the URI methods of NRC721FullBase: URIs derived from the base URI, stored URIs and their batches.
+ */
+public class NRC721MetadataTest {
+
+    private ContractSimulator simulator;
+    private URIToken token;
+    private Address minter;
+    private Address owner;
+
+    @Before
+    public void setUp() {
+        simulator = ContractSimulator.reset();
+        minter = simulator.newAddress();
+        owner = simulator.newAddress();
+        token = simulator.deploy(minter, URIToken::new);
+        simulator.call(minter, token, () -> token.mintRange(owner, id(1), 200));
+    }
+
+    @Test
+    public void derivedFromTheBaseURI() {
+        assertNull(token.tokenURI(id(7)));
+        simulator.call(minter, token, () -> token.setBaseURI("ipfs://base/", ".json"));
+        assertEquals("ipfs://base/7.json", token.tokenURI(id(7)));
+        simulator.call(minter, token, () -> token.setBaseURI("https://nuls.io/meta/", null));
+        assertEquals("https://nuls.io/meta/7", token.tokenURI(id(7)));
+    }
+
+    @Test
+    public void storedURIOverridesTheBaseURI() {
+        simulator.call(minter, token, () -> token.setBaseURI("ipfs://base/", ".json"));
+        simulator.call(minter, token, () -> token.setTokenURI(id(7), "ipfs://special.json"));
+        assertEquals("ipfs://special.json", token.tokenURI(id(7)));
+        assertEquals("ipfs://base/8.json", token.tokenURI(id(8)));
+        // removing it falls back to the base URI
+        simulator.call(minter, token, () -> token.setTokenURI(id(7), null));
+        assertEquals("ipfs://base/7.json", token.tokenURI(id(7)));
+    }
+
+    @Test
+    public void burnReleasesTheStoredURI() {
+        simulator.call(minter, token, () -> token.mint(owner, id(300)));
+        simulator.call(minter, token, () -> token.setBaseURI("ipfs://base/", ".json"));
+        assertEquals("https://nuls.io/token/300", token.tokenURI(id(300)));
+
+        simulator.call(minter, token, () -> token.burn(id(300)));
+        assertReverts("NRC721Metadata: URI query for nonexistent token", () -> token.tokenURI(id(300)));
+        // reminted without a URI of its own
+        simulator.call(minter, token, () -> token.mintRange(owner, id(300), 1));
+        assertEquals("ipfs://base/300.json", token.tokenURI(id(300)));
+        // the next stored URI takes the freed ref, leaving the reminted token on its derived URI
+        simulator.call(minter, token, () -> token.mint(owner, id(301)));
+        assertEquals("https://nuls.io/token/301", token.tokenURI(id(301)));
+        assertEquals("ipfs://base/300.json", token.tokenURI(id(300)));
+    }
+
+    @Test
+    public void setTokenURIsInOrder() {
+        simulator.call(minter, token, () -> token.setTokenURIs(ids(3, 1, 2), new String[]{"ipfs://c", "ipfs://a", null}));
+        assertArrayEquals(new String[]{"ipfs://a", null, "ipfs://c"}, token.tokenURIs(ids(1, 2, 3)));
+        // a repeated id keeps its last URI
+        simulator.call(minter, token, () -> token.setTokenURIs(ids(4, 4), new String[]{"ipfs://x", "ipfs://y"}));
+        assertEquals("ipfs://y", token.tokenURI(id(4)));
+    }
+
+    @Test
+    public void setTokenURIsRejectsBadBatches() {
+        assertReverts("NRC721Metadata: tokenIds and uris differ in length",
+                () -> token.setTokenURIs(ids(1, 2), new String[]{"ipfs://a"}));
+        assertReverts("NRC721Metadata: empty batch", () -> token.setTokenURIs(ids(), new String[0]));
+        assertReverts("NRC721Metadata: URI set of nonexistent token",
+                () -> token.setTokenURIs(ids(1, 500), new String[]{"ipfs://a", "ipfs://b"}));
+    }
+
+    @Test
+    public void tokenURIsIsCappedAtAPage() {
+        BigInteger[] page = new BigInteger[100];
+        for (int i = 0; i < page.length; i++) {
+            page[i] = id(i + 1);
+        }
+        assertEquals(100, token.tokenURIs(page).length);
+        BigInteger[] tooMany = new BigInteger[101];
+        System.arraycopy(page, 0, tooMany, 0, page.length);
+        tooMany[100] = id(101);
+        assertReverts("NRC721Metadata: at most 100 tokenIds per query", () -> token.tokenURIs(tooMany));
+        assertReverts("NRC721Metadata: URI query for nonexistent token", () -> token.tokenURIs(ids(1, 500)));
+    }
+
+    @Test
+    public void overwrittenURIsAreReleasedOnce() {
+        simulator.call(minter, token, () -> token.setTokenURIs(ids(1, 2, 3), new String[]{"ipfs://a", "ipfs://a", "ipfs://b"}));
+        // drops one of the two references to a, and keeps b by setting it again
+        simulator.call(minter, token, () -> token.setTokenURIs(ids(1, 3), new String[]{"ipfs://c", "ipfs://b"}));
+        // new URIs take the refs freed so far: a token still holding a freed ref would show one of them
+        simulator.call(minter, token, () -> token.setTokenURIs(ids(4, 5), new String[]{"ipfs://d", "ipfs://e"}));
+        assertArrayEquals(new String[]{"ipfs://c", "ipfs://a", "ipfs://b", "ipfs://d", "ipfs://e"},
+                token.tokenURIs(ids(1, 2, 3, 4, 5)));
+
+        // the last reference to a goes with this batch, so f takes its ref
+        simulator.call(minter, token, () -> token.setTokenURIs(ids(2), new String[]{null}));
+        simulator.call(minter, token, () -> token.setTokenURIs(ids(6), new String[]{"ipfs://f"}));
+        assertArrayEquals(new String[]{"ipfs://c", null, "ipfs://b", "ipfs://d", "ipfs://e", "ipfs://f"},
+                token.tokenURIs(ids(1, 2, 3, 4, 5, 6)));
+    }
+
+    private void assertReverts(String message, Runnable call) {
+        try {
+            simulator.call(minter, token, call);
+            fail(message);
+        } catch (RevertException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static BigInteger id(long tokenId) {
+        return BigInteger.valueOf(tokenId);
+    }
+
+    private static BigInteger[] ids(long... tokenIds) {
+        BigInteger[] result = new BigInteger[tokenIds.length];
+        for (int i = 0; i < tokenIds.length; i++) {
+            result[i] = id(tokenIds[i]);
+        }
+        return result;
+    }
+
+    public static class URIToken extends MintableNRC721Full {
+
+        public void setBaseURI(String baseURI, String suffix) {
+            super.setBaseURI(baseURI, suffix);
+        }
+
+        public void setTokenURI(BigInteger tokenId, String uri) {
+            super.setTokenURI(tokenId, uri);
+        }
+
+        public void setTokenURIs(BigInteger[] tokenIds, String[] uris) {
+            super.setTokenURIs(tokenIds, uris);
+        }
+    }
+}
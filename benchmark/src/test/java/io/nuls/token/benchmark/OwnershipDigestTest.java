@@ -0,0 +1,105 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.token.simulator.ContractSimulator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Checks that `ownershipDigest()` depends on the (tokenId, owner) pairs only, and on every one of them.
+ */
+public class OwnershipDigestTest {
+
+    private ContractSimulator simulator;
+    private Address minter;
+    private Address alice;
+    private Address bob;
+    private Address carol;
+
+    @Before
+    public void setUp() {
+        simulator = ContractSimulator.reset();
+        minter = simulator.newAddress();
+        alice = simulator.newAddress();
+        bob = simulator.newAddress();
+        carol = simulator.newAddress();
+    }
+
+    @Test
+    public void swapKeepingCountsAndSums() {
+        // each owner keeps two tokens summing to 5
+        MintableNRC721Enumerable first = deploy();
+        mint(first, alice, 1, 4);
+        mint(first, bob, 2, 3);
+        MintableNRC721Enumerable second = deploy();
+        mint(second, alice, 2, 3);
+        mint(second, bob, 1, 4);
+
+        assertNotEquals(first.ownershipDigest(), second.ownershipDigest());
+        assertNotEquals(first.ownershipDigestOf(alice), second.ownershipDigestOf(alice));
+    }
+
+    @Test
+    public void samePairsThroughEveryPath() {
+        MintableNRC721Enumerable token = deploy();
+        simulator.call(minter, token, () -> token.mintRange(alice, id(10), 5));
+        simulator.call(alice, token, () -> token.transferFrom(alice, bob, id(12)));
+        simulator.call(alice, token, () -> token.batchTransferFrom(alice, carol, new BigInteger[]{id(10), id(14)}));
+        simulator.call(minter, token, () -> token.burn(id(11)));
+
+        MintableNRC721Enumerable expected = deploy();
+        mint(expected, alice, 13);
+        mint(expected, bob, 12);
+        mint(expected, carol, 10, 14);
+
+        assertEquals(expected.ownershipDigest(), token.ownershipDigest());
+        long sum = 0;
+        for (Address owner : new Address[]{alice, bob, carol}) {
+            assertEquals(expected.ownershipDigestOf(owner), token.ownershipDigestOf(owner));
+            sum += Long.parseUnsignedLong(token.ownershipDigestOf(owner), 16);
+        }
+        assertEquals(Long.toHexString(sum), token.ownershipDigest());
+    }
+
+    private MintableNRC721Enumerable deploy() {
+        return simulator.deploy(minter, MintableNRC721Enumerable::new);
+    }
+
+    private void mint(MintableNRC721Enumerable token, Address to, long... tokenIds) {
+        for (long tokenId : tokenIds) {
+            simulator.call(minter, token, () -> token.mint(to, id(tokenId)));
+        }
+    }
+
+    private static BigInteger id(long tokenId) {
+        return BigInteger.valueOf(tokenId);
+    }
+}
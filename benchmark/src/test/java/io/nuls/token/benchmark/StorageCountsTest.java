@@ -0,0 +1,110 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.token.simulator.ContractSimulator;
+import io.nuls.token.simulator.StorageCounts;
+import io.nuls.token.simulator.StorageMeter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pins the collection gets/puts/removes (token record setters and owner page edits included) and events of one call
+ * to each state-changing entry point of MintableNRC721Full, so that a change costing more storage work fails here instead of showing up as gas.
+ * <p>When a change is meant to alter these counts, update the expected values together with it.</p>
+ */
+public class StorageCountsTest {
+
+    private ContractSimulator simulator;
+    private MintableNRC721Full token;
+    private StorageMeter meter;
+    private Address owner;
+    private Address other;
+
+    @Before
+    public void setUp() {
+        simulator = ContractSimulator.reset();
+        simulator.setRecordEvents(false);
+        Address minter = simulator.newAddress();
+        owner = simulator.newAddress();
+        other = simulator.newAddress();
+        token = simulator.deploy(minter, MintableNRC721Full::new);
+        meter = simulator.meter();
+        meter.instrument(token);
+        // a few tokens on both sides, so that no call below starts from an empty table
+        for (int i = 0; i < 4; i++) {
+            BigInteger tokenId = BigInteger.valueOf(i);
+            simulator.call(minter, token, "setup", () -> token.mint(owner, tokenId));
+        }
+        BigInteger otherTokenId = BigInteger.valueOf(4);
+        simulator.call(minter, token, "setup", () -> token.mint(other, otherTokenId));
+        meter.reset();
+    }
+
+    @Test
+    public void mint() {
+        Address minter = simulator.newAddress();
+        simulator.call(minter, token, "mint", () -> token.mint(other, BigInteger.valueOf(5)));
+        assertCounts("mint", 12, 10, 0, 1);
+    }
+
+    @Test
+    public void approve() {
+        simulator.call(owner, token, "approve", () -> token.approve(other, BigInteger.ONE));
+        assertCounts("approve", 3, 1, 0, 1);
+    }
+
+    @Test
+    public void transferFrom() {
+        simulator.call(owner, token, "transferFrom", () -> token.transferFrom(owner, other, BigInteger.ONE));
+        assertCounts("transferFrom", 16, 10, 1, 1);
+    }
+
+    @Test
+    public void approvedTransferFrom() {
+        simulator.call(owner, token, "approve", () -> token.approve(other, BigInteger.ONE));
+        simulator.call(other, token, "transferFrom", () -> token.transferFrom(owner, other, BigInteger.ONE));
+        assertCounts("transferFrom", 16, 10, 1, 1);
+    }
+
+    @Test
+    public void burn() {
+        simulator.call(owner, token, "burn", () -> token.burn(BigInteger.ONE));
+        assertCounts("burn", 13, 7, 4, 1);
+    }
+
+    private void assertCounts(String entryPoint, long gets, long puts, long removes, long emits) {
+        StorageCounts counts = meter.get(entryPoint);
+        assertEquals(entryPoint + " invocations", 1, counts.getInvocations());
+        assertEquals(entryPoint + " gets", gets, counts.getGets());
+        assertEquals(entryPoint + " puts", puts, counts.getPuts());
+        assertEquals(entryPoint + " removes", removes, counts.getRemoves());
+        assertEquals(entryPoint + " emits", emits, counts.getEmits());
+    }
+}
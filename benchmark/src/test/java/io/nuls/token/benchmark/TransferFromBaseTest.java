@@ -0,0 +1,97 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.token.model.NRC721TokenRecord;
+import io.nuls.token.simulator.ContractSimulator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that public and protected transfers of NRC721EnumerableBase both go through `transferFromBase`.
+ */
+public class TransferFromBaseTest {
+
+    private ContractSimulator simulator;
+    private HookedToken token;
+    private Address minter;
+    private Address owner;
+    private Address other;
+
+    @Before
+    public void setUp() {
+        simulator = ContractSimulator.reset();
+        minter = simulator.newAddress();
+        owner = simulator.newAddress();
+        other = simulator.newAddress();
+        token = simulator.deploy(minter, HookedToken::new);
+        for (int i = 0; i < 3; i++) {
+            BigInteger tokenId = BigInteger.valueOf(i);
+            simulator.call(minter, token, () -> token.mint(owner, tokenId));
+        }
+    }
+
+    @Test
+    public void publicTransferGoesThroughTheHook() {
+        simulator.call(owner, token, () -> token.transferFrom(owner, other, BigInteger.ONE));
+        assertEquals(1, token.hookCalls);
+        simulator.call(owner, token, () -> token.safeTransferFrom(owner, other, BigInteger.ZERO));
+        assertEquals(2, token.hookCalls);
+    }
+
+    @Test
+    public void protectedTransferKeepsTheEnumeration() {
+        simulator.call(minter, token, () -> token.move(owner, other, BigInteger.ONE));
+
+        assertEquals(BigInteger.ONE, token.tokenOfOwnerByIndex(other, 0));
+        assertArrayEquals(new BigInteger[]{BigInteger.ZERO, BigInteger.valueOf(2)}, token.tokensOfOwner(owner, 0, 10));
+        assertEquals(2, token.holderCount());
+
+        // the token can move again
+        simulator.call(other, token, () -> token.transferFrom(other, owner, BigInteger.ONE));
+        assertEquals(0, token.balanceOf(other));
+        assertEquals(1, token.holderCount());
+        assertEquals(3, token.tokensOfOwner(owner, 0, 10).length);
+    }
+
+    public static class HookedToken extends MintableNRC721Enumerable {
+        private int hookCalls;
+
+        public void move(Address from, Address to, BigInteger tokenId) {
+            transferFromBase(from, to, tokenId);
+        }
+
+        @Override
+        protected void transferFromBase(Address from, Address to, BigInteger tokenId, NRC721TokenRecord record) {
+            hookCalls++;
+            super.transferFromBase(from, to, tokenId, record);
+        }
+    }
+}
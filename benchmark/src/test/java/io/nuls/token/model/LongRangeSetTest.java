@@ -0,0 +1,125 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks LongRangeSet against a TreeSet over enough runs to split and empty many chunks.
+ */
+public class LongRangeSetTest {
+
+    @Test
+    public void scatteredValues() {
+        Random random = new Random(42);
+        LongRangeSet set = new LongRangeSet();
+        TreeSet<Long> expected = new TreeSet<Long>();
+        for (int i = 0; i < 20000; i++) {
+            long value = random.nextInt(30000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else if (expected.add(value)) {
+                set.add(value);
+            }
+        }
+        assertSame(expected, set);
+        while (!expected.isEmpty()) {
+            long value = expected.pollFirst();
+            assertTrue(set.remove(value));
+        }
+        assertEquals(0, set.size());
+        assertEquals(0, set.runCount());
+    }
+
+    @Test
+    public void ranges() {
+        Random random = new Random(7);
+        LongRangeSet set = new LongRangeSet();
+        TreeSet<Long> expected = new TreeSet<Long>();
+        for (int i = 0; i < 3000; i++) {
+            long start = random.nextInt(100000);
+            int count = 1 + random.nextInt(20);
+            if (expected.subSet(start, start + count).isEmpty()) {
+                set.addRange(start, count);
+                for (long value = start; value < start + count; value++) {
+                    expected.add(value);
+                }
+            }
+            long value = random.nextInt(100000);
+            assertEquals(expected.remove(value), set.remove(value));
+        }
+        assertSame(expected, set);
+    }
+
+    @Test
+    public void joinsAcrossChunks() {
+        LongRangeSet set = new LongRangeSet();
+        // every other value, then the gaps, so that runs merge across chunk boundaries
+        for (long value = 0; value < 2000; value += 2) {
+            set.add(value);
+        }
+        assertEquals(1000, set.runCount());
+        for (long value = 1; value < 2000; value += 2) {
+            set.add(value);
+        }
+        assertEquals(1, set.runCount());
+        assertEquals(2000, set.size());
+        assertEquals(1999, set.get(1999));
+        assertFalse(set.contains(2000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overlappingRange() {
+        LongRangeSet set = new LongRangeSet();
+        set.addRange(10, 5);
+        set.addRange(5, 6);
+    }
+
+    private static void assertSame(TreeSet<Long> expected, LongRangeSet set) {
+        assertEquals(expected.size(), set.size());
+        List<Long> values = new ArrayList<Long>(expected);
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals((long) values.get(i), set.get(i));
+            assertTrue(set.contains(values.get(i)));
+        }
+        long runs = 0;
+        Long previous = null;
+        for (Long value : values) {
+            if (previous == null || value != previous + 1) {
+                runs++;
+            }
+            previous = value;
+        }
+        assertEquals(runs, set.runCount());
+    }
+}
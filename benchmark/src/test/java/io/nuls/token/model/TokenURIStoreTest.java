@@ -0,0 +1,134 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.model;
+
+import io.nuls.token.simulator.RevertException;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that a URI is interned once whatever prefixes were added between two `intern` calls, and the URIs of a
+ * delayed reveal.
+ */
+public class TokenURIStoreTest {
+
+    private static final String URI = "ipfs://QmHash/1.json";
+
+    @Test
+    public void internAcrossAddedPrefixes() {
+        TokenURIStore store = new TokenURIStore();
+        int ref = store.intern(URI);
+        store.addPrefix("ipfs://");
+        assertEquals(ref, store.intern(URI));
+        store.addPrefix("ipfs://QmHash/");
+        assertEquals(ref, store.intern(URI));
+        assertEquals(URI, store.uriOf(ref));
+
+        // a single entry with three references
+        store.release(ref);
+        store.release(ref);
+        assertEquals(URI, store.uriOf(ref));
+        store.release(ref);
+        // freed with the last one, so its ref is reused
+        assertEquals(ref, store.intern("ipfs://QmHash/2.json"));
+    }
+
+    @Test
+    public void internUnderAShorterPrefix() {
+        TokenURIStore store = new TokenURIStore();
+        store.addPrefix("ipfs://");
+        int ref = store.intern(URI);
+        store.addPrefix("ipfs://QmHash/");
+        assertEquals(ref, store.intern(URI));
+        // new URIs use the longest prefix
+        int other = store.intern("ipfs://QmHash/2.json");
+        assertEquals("ipfs://QmHash/2.json", store.uriOf(other));
+    }
+
+    @Test
+    public void placeholderUntilReveal() {
+        TokenURIStore store = revealStore();
+        assertEquals("ipfs://hidden.json", store.tokenURI(BigInteger.ZERO, 0));
+        assertEquals("ipfs://hidden.json", store.tokenURI(BigInteger.valueOf(9), 0));
+        // a URI of its own is not hidden
+        int ref = store.intern(URI);
+        assertEquals(URI, store.tokenURI(BigInteger.ONE, ref));
+    }
+
+    @Test
+    public void revealShufflesByTheSeed() {
+        TokenURIStore store = revealStore();
+        // 23 mod 10 = 3
+        store.reveal(BigInteger.valueOf(23));
+        assertEquals("ipfs://base/3.json", store.tokenURI(BigInteger.ZERO, 0));
+        assertEquals("ipfs://base/9.json", store.tokenURI(BigInteger.valueOf(6), 0));
+        assertEquals("ipfs://base/0.json", store.tokenURI(BigInteger.valueOf(7), 0));
+        assertEquals("ipfs://base/2.json", store.tokenURI(BigInteger.valueOf(9), 0));
+        // ids past the collection wrap around too
+        assertEquals("ipfs://base/5.json", store.tokenURI(BigInteger.valueOf(12), 0));
+    }
+
+    @Test
+    public void revealOnlyOnce() {
+        TokenURIStore store = revealStore();
+        assertReverts("NRC721Metadata: empty seed", () -> store.reveal(null));
+        store.reveal(BigInteger.ONE);
+        assertReverts("NRC721Metadata: already revealed", () -> store.reveal(BigInteger.valueOf(2)));
+        assertReverts("NRC721Metadata: reveal mode already set",
+                () -> store.setRevealMode("ipfs://other.json", BigInteger.TEN));
+        assertEquals("ipfs://base/1.json", store.tokenURI(BigInteger.ZERO, 0));
+    }
+
+    @Test
+    public void revealModeOnlyOnce() {
+        TokenURIStore store = new TokenURIStore();
+        assertReverts("NRC721Metadata: reveal mode not set", () -> store.reveal(BigInteger.ONE));
+        assertReverts("NRC721Metadata: invalid collection size",
+                () -> store.setRevealMode("ipfs://hidden.json", BigInteger.ZERO));
+        store.setRevealMode("ipfs://hidden.json", BigInteger.TEN);
+        assertReverts("NRC721Metadata: reveal mode already set",
+                () -> store.setRevealMode("ipfs://other.json", BigInteger.ONE));
+        assertEquals(BigInteger.TEN, store.getCollectionSize());
+    }
+
+    private static TokenURIStore revealStore() {
+        TokenURIStore store = new TokenURIStore();
+        store.setBaseURI("ipfs://base/", ".json");
+        store.setRevealMode("ipfs://hidden.json", BigInteger.TEN);
+        return store;
+    }
+
+    private static void assertReverts(String message, Runnable call) {
+        try {
+            call.run();
+            fail(message);
+        } catch (RevertException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
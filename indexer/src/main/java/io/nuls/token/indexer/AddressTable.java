@@ -0,0 +1,77 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.indexer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns address strings into compact ids, as AddressRegistry does on chain.
+ * Ids start at 1, 0 stands for "no address".
+ */
+public class AddressTable {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> addresses = new ArrayList<>();
+
+    /**
+     * @return the id of `address`, 0 if it is null or was never registered
+     */
+    public int idOf(String address) {
+        if (address == null) {
+            return 0;
+        }
+        Integer id = ids.get(address);
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * @return the id of `address`, registering it first if needed, 0 for null
+     */
+    public int register(String address) {
+        if (address == null) {
+            return 0;
+        }
+        Integer id = ids.get(address);
+        if (id == null) {
+            addresses.add(address);
+            id = addresses.size();
+            ids.put(address, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return the address registered under `id`, null for 0
+     */
+    public String addressOf(int id) {
+        return id == 0 ? null : addresses.get(id - 1);
+    }
+
+    public int size() {
+        return addresses.size();
+    }
+}
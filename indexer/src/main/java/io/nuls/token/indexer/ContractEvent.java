@@ -0,0 +1,123 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.indexer;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A contract event as recorded by a node, one JSON object per event:
+ * <pre>{"contractAddress":"tNULSe...","blockNumber":42,"event":"Transfer","payload":{"from":null,"to":"tNULSe...","tokenId":"7"}}</pre>
+ * `event` is the simple name of the event class and `payload` holds its fields.
+ */
+public class ContractEvent {
+
+    private String contractAddress;
+    private long blockNumber;
+    private String event;
+    private Map<String, Object> payload;
+
+    public ContractEvent() {
+    }
+
+    public ContractEvent(String contractAddress, long blockNumber, String event, Map<String, Object> payload) {
+        this.contractAddress = contractAddress;
+        this.blockNumber = blockNumber;
+        this.event = event;
+        this.payload = payload;
+    }
+
+    public String getContractAddress() {
+        return contractAddress;
+    }
+
+    public void setContractAddress(String contractAddress) {
+        this.contractAddress = contractAddress;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public void setBlockNumber(long blockNumber) {
+        this.blockNumber = blockNumber;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public void setEvent(String event) {
+        this.event = event;
+    }
+
+    public Map<String, Object> getPayload() {
+        return payload;
+    }
+
+    public void setPayload(Map<String, Object> payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * @return the payload field `name` as a string, null if it is null or missing
+     */
+    public String getString(String name) {
+        Object value = payload.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    public BigInteger getBigInteger(String name) {
+        String value = getString(name);
+        return value == null ? null : new BigInteger(value);
+    }
+
+    public int getInt(String name) {
+        return Integer.parseInt(getString(name));
+    }
+
+    public boolean getBoolean(String name) {
+        return Boolean.parseBoolean(getString(name));
+    }
+
+    public BigInteger[] getBigIntegers(String name) {
+        List<?> values = (List<?>) payload.get(name);
+        BigInteger[] result = new BigInteger[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new BigInteger(values.get(i).toString());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "contractAddress='" + contractAddress + '\'' +
+                ", blockNumber=" + blockNumber +
+                ", event='" + event + '\'' +
+                ", payload=" + payload +
+                '}';
+    }
+}
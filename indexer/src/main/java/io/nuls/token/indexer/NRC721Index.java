@@ -0,0 +1,699 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.indexer;
+
+import io.nuls.token.model.LongArrayList;
+import io.nuls.token.model.LongHashMap;
+import io.nuls.token.model.LongHashSet;
+import io.nuls.token.model.LongIntHashMap;
+import io.nuls.token.model.LongRangeSet;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * State of one NRC721 contract rebuilt from its events, answering the queries of INRC721, INRC721Enumerable and
+ * INRC721Metadata without a node. Addresses are plain strings.
+ * <p>Token ids are keyed like NRC721Base does: ids in [0, 2^63) are their own key, the others get a negative key
+ * when first seen. The enumeration orders are not the contract's (the standard leaves them unspecified).
+ * Events carry no metadata, `setMetadata` and `setTokenURI` fill it in.</p>
+ * <p>Not thread-safe: events are applied by one thread, queries must not run concurrently with `apply`.</p>
+ */
+public class NRC721Index {
+
+    private static final long NO_KEY = Long.MIN_VALUE;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final Set<String> EVENTS = new HashSet<>(Arrays.asList(
+            "Transfer", "TransferBatch", "TransferRange", "Approval", "ApprovalBatch", "ApprovalForAll"));
+
+    private final String contractAddress;
+    private String name;
+    private String symbol;
+    /**
+     * block of the last applied event, -1 before the first one
+     */
+    private long blockNumber = -1;
+    /**
+     * number of NRC721 events of `blockNumber` applied, Integer.MAX_VALUE once the block is known to be complete
+     */
+    private int blockEvents;
+    /**
+     * block of the snapshot this index was loaded from, the earlier blocks are skipped; -1 if none
+     */
+    private long snapshotBlockNumber = -1;
+    /**
+     * number of NRC721 events of `snapshotBlockNumber` already in the snapshot, skipped when replayed again
+     */
+    private int snapshotBlockEvents;
+
+    private final AddressTable addresses = new AddressTable();
+    private final Map<BigInteger, Long> wideTokenKeys = new HashMap<>();
+    /**
+     * tokenIds outside [0, 2^63), the one with key `k` is at index `-1 - k`
+     */
+    private final List<BigInteger> wideTokenIds = new ArrayList<>();
+    /**
+     * token key -- owner id
+     */
+    private final LongIntHashMap owners = new LongIntHashMap();
+    /**
+     * token key -- approved address id
+     */
+    private final LongIntHashMap approvals = new LongIntHashMap();
+    /**
+     * owner id -- balance, holders without tokens are removed
+     */
+    private final LongIntHashMap balances = new LongIntHashMap();
+    /**
+     * (owner id, operator id) pairs packed by `operatorKey`
+     */
+    private final LongHashSet operatorApprovals = new LongHashSet();
+    private final LongRangeSet allTokens = new LongRangeSet();
+    /**
+     * owner id -- token keys of the owner
+     */
+    private final LongHashMap<LongArrayList> ownedTokens = new LongHashMap<>();
+    /**
+     * token key -- index in the token list of its owner; index 0 is stored as no entry
+     */
+    private final LongIntHashMap ownedTokensIndex = new LongIntHashMap();
+    /**
+     * token key -- tokenURI
+     */
+    private final LongHashMap<String> tokenURIs = new LongHashMap<>();
+    private long ownershipDigest;
+    /**
+     * undo records of the last blocks, null until `enableUndo`
+     */
+    private UndoLog undoLog;
+
+    public NRC721Index(String contractAddress) {
+        this.contractAddress = contractAddress;
+    }
+
+    /**
+     * Applies an event of this contract. Events other than the NRC721 ones are ignored.
+     * @throws IllegalStateException if the event contradicts the state, meaning that earlier events are missing
+     */
+    public void apply(ContractEvent event) {
+        if (event.getBlockNumber() < snapshotBlockNumber || !EVENTS.contains(event.getEvent())) {
+            return;
+        }
+        if (event.getBlockNumber() == snapshotBlockNumber && snapshotBlockEvents > 0) {
+            // the snapshot may have been taken partway through its block, skip only the events it holds
+            snapshotBlockEvents--;
+            return;
+        }
+        check(event.getBlockNumber() >= blockNumber, "event of earlier block " + event.getBlockNumber());
+        if (undoLog != null) {
+            undoLog.begin(event.getBlockNumber());
+        }
+        switch (event.getEvent()) {
+            case "Transfer":
+                transfer(event.getString("from"), event.getString("to"), event.getBigInteger("tokenId"));
+                break;
+            case "TransferBatch":
+                for (BigInteger tokenId : event.getBigIntegers("tokenIds")) {
+                    transfer(event.getString("from"), event.getString("to"), tokenId);
+                }
+                break;
+            case "TransferRange":
+                transferRange(event.getString("from"), event.getString("to"), event.getBigInteger("startTokenId"), event.getInt("count"));
+                break;
+            case "Approval":
+                approve(event.getString("owner"), event.getString("approved"), event.getBigInteger("tokenId"));
+                break;
+            case "ApprovalBatch":
+                for (BigInteger tokenId : event.getBigIntegers("tokenIds")) {
+                    approve(event.getString("owner"), event.getString("approved"), tokenId);
+                }
+                break;
+            case "ApprovalForAll":
+                setApprovalForAll(event.getString("owner"), event.getString("operator"), event.getBoolean("approved"));
+                break;
+            default:
+                break;
+        }
+        if (event.getBlockNumber() != blockNumber) {
+            blockNumber = event.getBlockNumber();
+            blockEvents = 0;
+        }
+        if (blockEvents != Integer.MAX_VALUE) {
+            blockEvents++;
+        }
+    }
+
+    public String getContractAddress() {
+        return contractAddress;
+    }
+
+    /**
+     * @return the block of the last applied event, -1 if there was none
+     */
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    /**
+     * Keeps undo records for the events of the last `depth` blocks applied from now on, so that `rollbackTo` can revert
+     * a reorganization of up to `depth` blocks.
+     */
+    public void enableUndo(int depth) {
+        undoLog = new UndoLog(depth, blockNumber);
+    }
+
+    /**
+     * Reverts the events of the blocks above `blockNumber`, in O(events reverted).
+     * The enumeration orders may differ from the ones before these blocks were applied.
+     * @throws IllegalStateException if the records of one of these blocks are not kept, the index must then be rebuilt
+     */
+    public void rollbackTo(long blockNumber) {
+        check(canRollbackTo(blockNumber), "no undo records down to block " + blockNumber);
+        if (undoLog != null) {
+            undoLog.rollbackTo(blockNumber, this::undo);
+        }
+        if (blockNumber < this.blockNumber) {
+            // the chain kept all events of the block rolled back to
+            this.blockNumber = blockNumber;
+            this.blockEvents = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return true if `rollbackTo(blockNumber)` would succeed: nothing was applied above `blockNumber`, or the undo
+     * records of every block above it are kept
+     */
+    public boolean canRollbackTo(long blockNumber) {
+        return blockNumber >= this.blockNumber || undoLog != null && undoLog.canRollbackTo(blockNumber);
+    }
+
+    /**
+     * @return the block of the snapshot this index was loaded from, -1 if it was built from the first event
+     */
+    public long getSnapshotBlockNumber() {
+        return snapshotBlockNumber;
+    }
+
+    public void setMetadata(String name, String symbol) {
+        this.name = name;
+        this.symbol = symbol;
+    }
+
+    /**
+     * Records the URI of an existing token, as read once from the contract.
+     */
+    public void setTokenURI(BigInteger tokenId, String uri) {
+        long key = tokenKey(tokenId);
+        check(key != NO_KEY && owners.containsKey(key), "URI of nonexistent token " + tokenId);
+        if (uri == null) {
+            tokenURIs.remove(key);
+        } else {
+            tokenURIs.put(key, uri);
+        }
+    }
+
+    // INRC721
+
+    public int balanceOf(String owner) {
+        return balances.get(addresses.idOf(owner));
+    }
+
+    /**
+     * @return the owner of `tokenId`, null if the token does not exist
+     */
+    public String ownerOf(BigInteger tokenId) {
+        long key = tokenKey(tokenId);
+        return key == NO_KEY ? null : addresses.addressOf(owners.get(key));
+    }
+
+    /**
+     * @return the approved address of `tokenId`, null if there is none or the token does not exist
+     */
+    public String getApproved(BigInteger tokenId) {
+        long key = tokenKey(tokenId);
+        return key == NO_KEY ? null : addresses.addressOf(approvals.get(key));
+    }
+
+    public boolean isApprovedForAll(String owner, String operator) {
+        int ownerId = addresses.idOf(owner);
+        int operatorId = addresses.idOf(operator);
+        return ownerId != 0 && operatorId != 0 && operatorApprovals.contains(operatorKey(ownerId, operatorId));
+    }
+
+    // INRC721Enumerable
+
+    public int totalSupply() {
+        return allTokens.size();
+    }
+
+    /**
+     * @return the token at `index` in ascending token key order, null if `index` >= `totalSupply()`
+     */
+    public BigInteger tokenByIndex(int index) {
+        return index < 0 || index >= allTokens.size() ? null : tokenIdOf(allTokens.get(index));
+    }
+
+    /**
+     * @return the token at `index` of `owner`, null if `index` >= `balanceOf(owner)`
+     */
+    public BigInteger tokenOfOwnerByIndex(String owner, int index) {
+        LongArrayList tokens = ownedTokens.get(addresses.idOf(owner));
+        return tokens == null || index < 0 || index >= tokens.size() ? null : tokenIdOf(tokens.get(index));
+    }
+
+    public BigInteger[] tokens(int offset, int limit) {
+        BigInteger[] tokenIds = new BigInteger[pageLength(allTokens.size(), offset, limit)];
+        for (int i = 0; i < tokenIds.length; i++) {
+            tokenIds[i] = tokenIdOf(allTokens.get(offset + i));
+        }
+        return tokenIds;
+    }
+
+    public BigInteger[] tokensOfOwner(String owner, int offset, int limit) {
+        LongArrayList tokens = ownedTokens.get(addresses.idOf(owner));
+        BigInteger[] tokenIds = new BigInteger[pageLength(tokens == null ? 0 : tokens.size(), offset, limit)];
+        for (int i = 0; i < tokenIds.length; i++) {
+            tokenIds[i] = tokenIdOf(tokens.get(offset + i));
+        }
+        return tokenIds;
+    }
+
+    /**
+     * @return the number of addresses owning at least one token
+     */
+    public int holderCount() {
+        return balances.size();
+    }
+
+    /**
+     * @return the same value as the contract's `ownershipDigest()` when both hold the same owners
+     */
+    public String ownershipDigest() {
+        return Long.toHexString(ownershipDigest);
+    }
+
+    // INRC721Metadata
+
+    public String name() {
+        return name;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    /**
+     * @return the URI set by `setTokenURI`, null if there is none or the token does not exist
+     */
+    public String tokenURI(BigInteger tokenId) {
+        long key = tokenKey(tokenId);
+        return key == NO_KEY ? null : tokenURIs.get(key);
+    }
+
+    /**
+     * Writes the tables of the index, see IndexSnapshot for the layout.
+     */
+    void writeSnapshot(DataOutputStream out) throws IOException {
+        out.writeLong(blockNumber);
+        out.writeInt(blockEvents);
+        out.writeLong(ownershipDigest);
+        writeString(out, contractAddress);
+        writeString(out, name);
+        writeString(out, symbol);
+
+        out.writeInt(addresses.size());
+        for (int id = 1; id <= addresses.size(); id++) {
+            writeString(out, addresses.addressOf(id));
+        }
+        out.writeInt(wideTokenIds.size());
+        for (BigInteger tokenId : wideTokenIds) {
+            byte[] bytes = tokenId.toByteArray();
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        out.writeInt(allTokens.size());
+        for (int i = 0; i < allTokens.size(); i++) {
+            out.writeLong(allTokens.get(i));
+        }
+        long[] holders = ownedTokens.keys();
+        out.writeInt(holders.length);
+        for (long ownerId : holders) {
+            LongArrayList tokens = ownedTokens.get(ownerId);
+            out.writeInt((int) ownerId);
+            out.writeInt(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                out.writeLong(tokens.get(i));
+            }
+        }
+        long[] approved = approvals.keys();
+        out.writeInt(approved.length);
+        for (long key : approved) {
+            out.writeLong(key);
+            out.writeInt(approvals.get(key));
+        }
+        long[] operators = operatorApprovals.values();
+        out.writeInt(operators.length);
+        for (long operatorKey : operators) {
+            out.writeLong(operatorKey);
+        }
+        long[] withURI = tokenURIs.keys();
+        out.writeInt(withURI.length);
+        for (long key : withURI) {
+            out.writeLong(key);
+            writeString(out, tokenURIs.get(key));
+        }
+    }
+
+    /**
+     * Rebuilds an index from the tables written by `writeSnapshot`, read straight from `buffer`.
+     */
+    static NRC721Index readSnapshot(ByteBuffer buffer) {
+        long blockNumber = buffer.getLong();
+        int blockEvents = buffer.getInt();
+        long ownershipDigest = buffer.getLong();
+        NRC721Index index = new NRC721Index(readString(buffer));
+        index.blockNumber = blockNumber;
+        index.blockEvents = blockEvents;
+        index.snapshotBlockNumber = blockNumber;
+        index.snapshotBlockEvents = blockEvents;
+        index.ownershipDigest = ownershipDigest;
+        index.name = readString(buffer);
+        index.symbol = readString(buffer);
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            index.addresses.register(readString(buffer));
+        }
+        for (int i = buffer.getInt(); i > 0; i--) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            index.internTokenKey(new BigInteger(bytes));
+        }
+
+        // ascending, so every add extends the last run
+        for (int i = buffer.getInt(); i > 0; i--) {
+            index.allTokens.add(buffer.getLong());
+        }
+        for (int i = buffer.getInt(); i > 0; i--) {
+            int ownerId = buffer.getInt();
+            int count = buffer.getInt();
+            for (int j = 0; j < count; j++) {
+                long key = buffer.getLong();
+                index.owners.put(key, ownerId);
+                index.addOwnedToken(ownerId, key);
+            }
+            index.balances.put(ownerId, count);
+        }
+        for (int i = buffer.getInt(); i > 0; i--) {
+            long key = buffer.getLong();
+            index.approvals.put(key, buffer.getInt());
+        }
+        for (int i = buffer.getInt(); i > 0; i--) {
+            index.operatorApprovals.add(buffer.getLong());
+        }
+        for (int i = buffer.getInt(); i > 0; i--) {
+            long key = buffer.getLong();
+            index.tokenURIs.put(key, readString(buffer));
+        }
+        return index;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void transfer(String from, String to, BigInteger tokenId) {
+        if (from == null) {
+            long key = internTokenKey(tokenId);
+            check(!owners.containsKey(key), "token " + tokenId + " already minted");
+            mintKey(addresses.register(to), key);
+            record(UndoLog.MINT, key, 0, 0, null);
+            return;
+        }
+        long key = tokenKey(tokenId);
+        int fromId = addresses.idOf(from);
+        check(key != NO_KEY && fromId != 0 && owners.get(key) == fromId, "transfer of token " + tokenId + " not owned by " + from);
+        int approvedId = approvals.remove(key);
+        if (to == null) {
+            record(UndoLog.BURN, key, fromId, approvedId, tokenURIs.remove(key));
+            burnKey(fromId, key);
+            return;
+        }
+        record(UndoLog.TRANSFER, key, fromId, approvedId, null);
+        moveKey(key, fromId, addresses.register(to));
+    }
+
+    private void transferRange(String from, String to, BigInteger startTokenId, int count) {
+        check(from == null, "TransferRange from " + from);
+        int toId = addresses.register(to);
+        long startKey = internTokenKey(startTokenId);
+        for (int i = 0; i < count; i++) {
+            check(!owners.containsKey(startKey + i), "token " + startTokenId.add(BigInteger.valueOf(i)) + " already minted");
+            owners.put(startKey + i, toId);
+            addOwnedToken(toId, startKey + i);
+        }
+        allTokens.addRange(startKey, count);
+        balances.add(toId, count);
+        long seed = addressSeed(to);
+        for (int i = 0; i < count; i++) {
+            ownershipDigest += digest(seed, startKey + i);
+        }
+        record(UndoLog.MINT_RANGE, startKey, count, 0, null);
+    }
+
+    private void approve(String owner, String approved, BigInteger tokenId) {
+        long key = tokenKey(tokenId);
+        int ownerId = key == NO_KEY ? 0 : owners.get(key);
+        check(ownerId != 0 && ownerId == addresses.idOf(owner), "approval of token " + tokenId + " not owned by " + owner);
+        record(UndoLog.APPROVE, key, approvals.put(key, addresses.register(approved)), 0, null);
+    }
+
+    private void setApprovalForAll(String owner, String operator, boolean approved) {
+        long operatorKey = operatorKey(addresses.register(owner), addresses.register(operator));
+        boolean wasApproved = approved ? !operatorApprovals.add(operatorKey) : operatorApprovals.remove(operatorKey);
+        record(UndoLog.OPERATOR, operatorKey, wasApproved ? 1 : 0, 0, null);
+    }
+
+    private void record(int op, long key, int a, int b, String uri) {
+        if (undoLog != null) {
+            undoLog.record(op, key, a, b, uri);
+        }
+    }
+
+    /**
+     * Reverts one operation recorded by the methods above.
+     */
+    private void undo(int op, long key, int a, int b, String uri) {
+        switch (op) {
+            case UndoLog.MINT:
+                approvals.remove(key);
+                tokenURIs.remove(key);
+                burnKey(owners.get(key), key);
+                break;
+            case UndoLog.MINT_RANGE:
+                for (long i = 0; i < a; i++) {
+                    approvals.remove(key + i);
+                    tokenURIs.remove(key + i);
+                    burnKey(owners.get(key + i), key + i);
+                }
+                break;
+            case UndoLog.TRANSFER:
+                moveKey(key, owners.get(key), a);
+                approvals.put(key, b);
+                break;
+            case UndoLog.BURN:
+                mintKey(a, key);
+                approvals.put(key, b);
+                if (uri != null) {
+                    tokenURIs.put(key, uri);
+                }
+                break;
+            case UndoLog.APPROVE:
+                approvals.put(key, a);
+                break;
+            case UndoLog.OPERATOR:
+                if (a == 1) {
+                    operatorApprovals.add(key);
+                } else {
+                    operatorApprovals.remove(key);
+                }
+                break;
+            default:
+                throw new IllegalStateException("unknown undo operation " + op);
+        }
+    }
+
+    private void mintKey(int toId, long key) {
+        owners.put(key, toId);
+        balances.add(toId, 1);
+        allTokens.add(key);
+        addOwnedToken(toId, key);
+        ownershipDigest += digest(addressSeed(addresses.addressOf(toId)), digestValue(key));
+    }
+
+    private void moveKey(long key, int fromId, int toId) {
+        owners.put(key, toId);
+        balances.add(fromId, -1);
+        balances.add(toId, 1);
+        removeOwnedToken(fromId, key);
+        addOwnedToken(toId, key);
+        long token = digestValue(key);
+        ownershipDigest += digest(addressSeed(addresses.addressOf(toId)), token) - digest(addressSeed(addresses.addressOf(fromId)), token);
+    }
+
+    /**
+     * Removes the ownership of the token, its approval and URI are removed by the caller.
+     */
+    private void burnKey(int ownerId, long key) {
+        owners.remove(key);
+        balances.add(ownerId, -1);
+        allTokens.remove(key);
+        removeOwnedToken(ownerId, key);
+        ownershipDigest -= digest(addressSeed(addresses.addressOf(ownerId)), digestValue(key));
+    }
+
+    private void addOwnedToken(int ownerId, long key) {
+        LongArrayList tokens = ownedTokens.get(ownerId);
+        if (tokens == null) {
+            tokens = new LongArrayList();
+            ownedTokens.put(ownerId, tokens);
+        }
+        ownedTokensIndex.put(key, tokens.size());
+        tokens.add(key);
+    }
+
+    private void removeOwnedToken(int ownerId, long key) {
+        // swap and pop
+        LongArrayList tokens = ownedTokens.get(ownerId);
+        int index = ownedTokensIndex.remove(key);
+        long lastKey = tokens.removeLast();
+        if (lastKey != key) {
+            tokens.set(index, lastKey);
+            ownedTokensIndex.put(lastKey, index);
+        }
+        if (tokens.isEmpty()) {
+            ownedTokens.remove(ownerId);
+        }
+    }
+
+    /**
+     * @return the low 64 bits of the tokenId of `key`, as mixed by the ownership digest
+     */
+    private long digestValue(long key) {
+        return key >= 0 ? key : tokenIdOf(key).longValue();
+    }
+
+    private long tokenKey(BigInteger tokenId) {
+        if (tokenId.signum() >= 0 && tokenId.bitLength() < 64) {
+            return tokenId.longValue();
+        }
+        Long key = wideTokenKeys.get(tokenId);
+        return key == null ? NO_KEY : key;
+    }
+
+    private long internTokenKey(BigInteger tokenId) {
+        long key = tokenKey(tokenId);
+        if (key == NO_KEY) {
+            key = -1L - wideTokenIds.size();
+            wideTokenKeys.put(tokenId, key);
+            wideTokenIds.add(tokenId);
+        }
+        return key;
+    }
+
+    private BigInteger tokenIdOf(long key) {
+        return key >= 0 ? BigInteger.valueOf(key) : wideTokenIds.get((int) (-1L - key));
+    }
+
+    private static long operatorKey(int ownerId, int operatorId) {
+        return ((long) ownerId << 32) | (operatorId & 0xFFFFFFFFL);
+    }
+
+    private static int pageLength(int size, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("offset " + offset + ", limit " + limit);
+        }
+        return offset >= size ? 0 : Math.min(limit, size - offset);
+    }
+
+    /**
+     * Term of one (tokenId, owner) pair in the ownership digest, see NRC721Base.ownershipDigest()
+     */
+    private static long digest(long ownerSeed, long token) {
+        return fmix64(token ^ ownerSeed) + fmix64(ownerSeed + GOLDEN_GAMMA);
+    }
+
+    /**
+     * 64-bit FNV-1a over the chars of `address`, as NRC721Base does
+     */
+    private static long addressSeed(String address) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < address.length(); i++) {
+            h ^= address.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(contractAddress + " at block " + blockNumber + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.indexer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Replays recorded contract events into one NRC721Index per contract address.
+ * <p>Usage: java -jar nrc721-indexer.jar [-s &lt;snapshot dir&gt;] &lt;event file&gt;... replays the files in order
+ * on all cores, one contract per task, and prints a summary of every contract. With `-s`, the snapshots of the
+ * directory are loaded first, so only the events after them are applied, and new snapshots are written at the end.</p>
+ */
+public class NRC721Indexer {
+
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private final Map<String, NRC721Index> indexes = new LinkedHashMap<>();
+    /**
+     * number of blocks the indexes can roll back, 0 to keep no undo records
+     */
+    private int undoDepth;
+
+    /**
+     * @return the index of `contractAddress`, null if none of its events was applied
+     */
+    public NRC721Index index(String contractAddress) {
+        return indexes.get(contractAddress);
+    }
+
+    public Collection<NRC721Index> indexes() {
+        return indexes.values();
+    }
+
+    public void apply(ContractEvent event) {
+        obtainIndex(event.getContractAddress()).apply(event);
+    }
+
+    public void replay(Path eventFile) throws IOException {
+        EventFiles.forEach(eventFile, this::apply);
+    }
+
+    /**
+     * Replays the files on `pool`, one task per contract, see ParallelReplay.
+     */
+    public void replay(List<Path> eventFiles, ForkJoinPool pool) throws IOException {
+        ParallelReplay.replay(this, eventFiles, pool);
+    }
+
+    /**
+     * Keeps undo records for the last `depth` blocks in every index, for `rollbackTo`.
+     * Enable it once the backfill is done and new blocks are followed.
+     */
+    public void enableUndo(int depth) {
+        undoDepth = depth;
+        for (NRC721Index index : indexes.values()) {
+            index.enableUndo(depth);
+        }
+    }
+
+    /**
+     * Reverts every index to `blockNumber`, after a reorganization of the chain above it.
+     * @throws IllegalStateException if an index lacks the undo records, in which case no index is reverted
+     */
+    public void rollbackTo(long blockNumber) {
+        for (NRC721Index index : indexes.values()) {
+            if (!index.canRollbackTo(blockNumber)) {
+                throw new IllegalStateException(index.getContractAddress() + ": no undo records down to block " + blockNumber);
+            }
+        }
+        for (NRC721Index index : indexes.values()) {
+            index.rollbackTo(blockNumber);
+        }
+    }
+
+    /**
+     * @return the index of `contractAddress`, created if needed
+     */
+    NRC721Index obtainIndex(String contractAddress) {
+        NRC721Index index = indexes.get(contractAddress);
+        if (index == null) {
+            index = new NRC721Index(contractAddress);
+            if (undoDepth > 0) {
+                index.enableUndo(undoDepth);
+            }
+            indexes.put(contractAddress, index);
+        }
+        return index;
+    }
+
+    /**
+     * Writes the snapshot of every index to `directory`, as `<contract address>.snapshot`.
+     */
+    public void saveSnapshots(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (NRC721Index index : indexes.values()) {
+            IndexSnapshot.write(index, directory.resolve(index.getContractAddress() + SNAPSHOT_SUFFIX));
+        }
+    }
+
+    /**
+     * Replaces the indexes of the contracts that have a snapshot in `directory` by the saved ones.
+     */
+    public void loadSnapshots(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                NRC721Index index = IndexSnapshot.read(file);
+                if (undoDepth > 0) {
+                    index.enableUndo(undoDepth);
+                }
+                indexes.put(index.getContractAddress(), index);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path snapshotDirectory = null;
+        if (args.length >= 2 && "-s".equals(args[0])) {
+            snapshotDirectory = Paths.get(args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if (args.length == 0) {
+            System.err.println("usage: NRC721Indexer [-s <snapshot dir>] <event file>...");
+            System.exit(1);
+        }
+        NRC721Indexer indexer = new NRC721Indexer();
+        long start = System.nanoTime();
+        if (snapshotDirectory != null) {
+            indexer.loadSnapshots(snapshotDirectory);
+            System.out.printf("loaded %d snapshot(s) in %d ms%n", indexer.indexes.size(), (System.nanoTime() - start) / 1000000);
+            start = System.nanoTime();
+        }
+        List<Path> eventFiles = new ArrayList<>();
+        for (String file : args) {
+            eventFiles.add(Paths.get(file));
+        }
+        indexer.replay(eventFiles, ForkJoinPool.commonPool());
+        System.out.printf("replayed %d file(s) in %d ms%n", args.length, (System.nanoTime() - start) / 1000000);
+        if (snapshotDirectory != null) {
+            indexer.saveSnapshots(snapshotDirectory);
+        }
+        for (NRC721Index index : indexer.indexes()) {
+            System.out.printf("%s block=%d totalSupply=%d holders=%d digest=%s%n", index.getContractAddress(),
+                    index.getBlockNumber(), index.totalSupply(), index.holderCount(), index.ownershipDigest());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.indexer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+/**
+ * Replays the events of many contracts on a fork-join pool. Contracts do not share state, so the events are
+ * partitioned by contract address and each partition is applied by one task, in file order.
+ * <p>The files are streamed in chunks of lines: while the pool applies one chunk, the next one is read and parsed,
+ * so memory holds at most two chunks whatever the length of the history.</p>
+ */
+public final class ParallelReplay {
+
+    static final int CHUNK_SIZE = 1 << 14;
+
+    private ParallelReplay() {
+    }
+
+    /**
+     * Streams the event files, in the given order, and applies the events of each contract to its index in `indexer`.
+     */
+    public static void replay(NRC721Indexer indexer, List<Path> eventFiles, ForkJoinPool pool) throws IOException {
+        replay(indexer, eventFiles, pool, CHUNK_SIZE);
+    }
+
+    static void replay(NRC721Indexer indexer, List<Path> eventFiles, ForkJoinPool pool, int chunkSize) throws IOException {
+        List<String> lines = new ArrayList<>(chunkSize);
+        ForkJoinTask<?> applying = null;
+        for (Path file : eventFiles) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    lines.add(line);
+                    if (lines.size() == chunkSize) {
+                        applying = submitChunk(indexer, lines, applying, pool);
+                        lines = new ArrayList<>(chunkSize);
+                    }
+                }
+            }
+        }
+        if (!lines.isEmpty()) {
+            applying = submitChunk(indexer, lines, applying, pool);
+        }
+        join(applying);
+    }
+
+    /**
+     * Parses `lines` on `pool`, waits for the previous chunk, then starts applying this one.
+     * @return the task applying the chunk
+     */
+    private static ForkJoinTask<?> submitChunk(NRC721Indexer indexer, List<String> lines, ForkJoinTask<?> previous,
+                                               ForkJoinPool pool) throws IOException {
+        List<ContractEvent> events = invoke(pool, () -> lines.parallelStream()
+                .map(ParallelReplay::parse)
+                .collect(Collectors.toList()));
+        // a contract may have events in both chunks, they must not be applied concurrently
+        join(previous);
+
+        Map<String, List<ContractEvent>> partitions = new LinkedHashMap<>();
+        for (ContractEvent event : events) {
+            partitions.computeIfAbsent(event.getContractAddress(), contract -> new ArrayList<>()).add(event);
+        }
+        // indexes are created here, the tasks only touch their own index
+        List<Partition> work = new ArrayList<>(partitions.size());
+        for (Map.Entry<String, List<ContractEvent>> entry : partitions.entrySet()) {
+            work.add(new Partition(indexer.obtainIndex(entry.getKey()), entry.getValue()));
+        }
+        return pool.submit(new ReplayTask(work, 0, work.size()));
+    }
+
+    private static void join(ForkJoinTask<?> task) throws IOException {
+        if (task != null) {
+            invoke(task::get);
+        }
+    }
+
+    private static <T> T invoke(ForkJoinPool pool, Callable<T> task) throws IOException {
+        return invoke(() -> pool.submit(task).get());
+    }
+
+    private static <T> T invoke(Callable<T> waiting) throws IOException {
+        try {
+            return waiting.call();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ContractEvent parse(String line) {
+        try {
+            return EventFiles.parse(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Partition {
+        private final NRC721Index index;
+        private final List<ContractEvent> events;
+
+        private Partition(NRC721Index index, List<ContractEvent> events) {
+            this.index = index;
+            this.events = events;
+        }
+    }
+
+    /**
+     * Splits the partitions in halves down to one partition per task.
+     */
+    private static class ReplayTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Partition> partitions;
+        private final int from;
+        private final int to;
+
+        private ReplayTask(List<Partition> partitions, int from, int to) {
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Partition partition = partitions.get(from);
+                for (ContractEvent event : partition.events) {
+                    partition.index.apply(event);
+                }
+            } else if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ReplayTask(partitions, from, middle), new ReplayTask(partitions, middle, to));
+            }
+        }
+    }
+}
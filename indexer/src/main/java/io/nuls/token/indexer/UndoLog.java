@@ -0,0 +1,157 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.indexer;
+
+import java.util.Arrays;
+
+/**
+ * Undo records of the last `depth` blocks applied to an NRC721Index, in a ring buffer of per-block arrays that are
+ * reused once their block falls out of the window.
+ * A record is an operation code, a token (or operator pair) key, two ids and, for burns, the URI the token had.
+ */
+final class UndoLog {
+
+    static final int MINT = 1;
+    static final int MINT_RANGE = 2;
+    static final int TRANSFER = 3;
+    static final int BURN = 4;
+    static final int APPROVE = 5;
+    static final int OPERATOR = 6;
+
+    /**
+     * Applies one undo record, the records of a block are handed newest first.
+     */
+    interface Undoer {
+        void undo(int op, long key, int a, int b, String uri);
+    }
+
+    private final Block[] blocks;
+    /**
+     * slot of the newest block, -1 when empty
+     */
+    private int newest = -1;
+    private int count;
+    /**
+     * highest block whose records were dropped or never kept, the log cannot roll back below it
+     */
+    private long droppedBlockNumber = -1;
+
+    /**
+     * @param recordedAfter the block of the last event applied before the log started, it cannot roll back below it
+     */
+    UndoLog(int depth, long recordedAfter) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth " + depth);
+        }
+        droppedBlockNumber = recordedAfter;
+        blocks = new Block[depth];
+        for (int i = 0; i < depth; i++) {
+            blocks[i] = new Block();
+        }
+    }
+
+    int depth() {
+        return blocks.length;
+    }
+
+    /**
+     * Starts the records of `blockNumber`, unless they are already the newest ones.
+     */
+    void begin(long blockNumber) {
+        if (count > 0 && blocks[newest].blockNumber == blockNumber) {
+            return;
+        }
+        newest = (newest + 1) % blocks.length;
+        Block block = blocks[newest];
+        if (count == blocks.length) {
+            droppedBlockNumber = Math.max(droppedBlockNumber, block.blockNumber);
+        } else {
+            count++;
+        }
+        block.reset(blockNumber);
+    }
+
+    void record(int op, long key, int a, int b, String uri) {
+        blocks[newest].add(op, key, a, b, uri);
+    }
+
+    /**
+     * @return true if every block above `blockNumber` still has its records
+     */
+    boolean canRollbackTo(long blockNumber) {
+        return blockNumber >= droppedBlockNumber;
+    }
+
+    /**
+     * Hands the records of the blocks above `blockNumber` to `undoer`, newest first, and forgets them.
+     */
+    void rollbackTo(long blockNumber, Undoer undoer) {
+        while (count > 0 && blocks[newest].blockNumber > blockNumber) {
+            Block block = blocks[newest];
+            for (int i = block.size - 1; i >= 0; i--) {
+                undoer.undo(block.ops[i], block.keys[i], block.as[i], block.bs[i], block.uris[i]);
+            }
+            block.reset(-1);
+            newest = (newest - 1 + blocks.length) % blocks.length;
+            count--;
+        }
+    }
+
+    private static final class Block {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long blockNumber = -1;
+        private int size;
+        private int[] ops = new int[INITIAL_CAPACITY];
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] as = new int[INITIAL_CAPACITY];
+        private int[] bs = new int[INITIAL_CAPACITY];
+        private String[] uris = new String[INITIAL_CAPACITY];
+
+        private void reset(long blockNumber) {
+            for (int i = 0; i < size; i++) {
+                uris[i] = null;
+            }
+            this.blockNumber = blockNumber;
+            this.size = 0;
+        }
+
+        private void add(int op, long key, int a, int b, String uri) {
+            if (size == ops.length) {
+                int capacity = size << 1;
+                ops = Arrays.copyOf(ops, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                as = Arrays.copyOf(as, capacity);
+                bs = Arrays.copyOf(bs, capacity);
+                uris = Arrays.copyOf(uris, capacity);
+            }
+            ops[size] = op;
+            keys[size] = key;
+            as[size] = a;
+            bs[size] = b;
+            uris[size] = uri;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.indexer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Replays the recorded events.jsonl and compares the index with the state the contract had after emitting them.
+ * <p>The contract minted tokens 1 and 2 to A and the range 10..14 to B. Through an approval, an operator and a
+ * batch transfer, it ended with 1 and 13 at C, 10 and 12 at A, and 11 and 14 at B. Token 2 was burned.</p>
+ */
+public class NRC721IndexerTest {
+
+    private static final String CONTRACT = "tNULSeBaMsimulator5";
+    private static final String OTHER_CONTRACT = "tNULSeBaMsimulator9";
+    private static final String A = "tNULSeBaMsimulator2";
+    private static final String B = "tNULSeBaMsimulator3";
+    private static final String C = "tNULSeBaMsimulator4";
+    /**
+     * ownershipDigest() of the contract after the recorded events
+     */
+    private static final String CONTRACT_DIGEST = "3bed2f35b9ff0aba";
+
+    /**
+     * snapshot directory of the test, deleted after it
+     */
+    private Path directory;
+
+    @After
+    public void deleteDirectory() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void replay() throws Exception {
+        NRC721Indexer indexer = new NRC721Indexer();
+        indexer.replay(eventFile());
+        assertContractState(indexer.index(CONTRACT));
+    }
+
+    @Test
+    public void parallelReplay() throws Exception {
+        NRC721Indexer indexer = new NRC721Indexer();
+        indexer.replay(Collections.singletonList(eventFile()), new ForkJoinPool(2));
+        assertContractState(indexer.index(CONTRACT));
+    }
+
+    @Test
+    public void parallelReplayInSmallChunks() throws Exception {
+        NRC721Indexer indexer = new NRC721Indexer();
+        ParallelReplay.replay(indexer, Collections.singletonList(eventFile()), new ForkJoinPool(2), 3);
+        assertContractState(indexer.index(CONTRACT));
+    }
+
+    @Test
+    public void snapshotPartwayThroughBlock() throws Exception {
+        List<String> lines = Files.readAllLines(eventFile());
+        directory = Files.createTempDirectory("nrc721-snapshots");
+        // the header and the first 4 events stop in block 2, before its transfer of token 1
+        Path head = directory.resolve("head.jsonl");
+        Files.write(head, lines.subList(0, 5));
+        NRC721Indexer indexer = new NRC721Indexer();
+        indexer.replay(head);
+        indexer.saveSnapshots(directory);
+
+        NRC721Indexer restarted = new NRC721Indexer();
+        restarted.loadSnapshots(directory);
+        restarted.replay(eventFile());
+        assertContractState(restarted.index(CONTRACT));
+    }
+
+    @Test
+    public void undoAfterLoadingSnapshots() throws Exception {
+        List<String> lines = Files.readAllLines(eventFile());
+        directory = Files.createTempDirectory("nrc721-snapshots");
+        Path head = directory.resolve("head.jsonl");
+        Files.write(head, lines.subList(0, 5));
+        NRC721Indexer indexer = new NRC721Indexer();
+        indexer.replay(head);
+        indexer.saveSnapshots(directory);
+        // the header and the 6 events of blocks 1 and 2
+        Files.write(head, lines.subList(0, 7));
+        NRC721Indexer expected = new NRC721Indexer();
+        expected.replay(head);
+
+        NRC721Indexer restarted = new NRC721Indexer();
+        restarted.enableUndo(4);
+        restarted.loadSnapshots(directory);
+        restarted.replay(eventFile());
+        restarted.rollbackTo(2);
+        NRC721Index index = restarted.index(CONTRACT);
+        assertEquals(2, index.getBlockNumber());
+        assertEquals(B, index.ownerOf(BigInteger.valueOf(12)));
+        assertTrue(index.isApprovedForAll(B, C));
+        assertEquals(expected.index(CONTRACT).ownershipDigest(), index.ownershipDigest());
+    }
+
+    @Test
+    public void rollbackRevertsAllIndexesOrNone() throws Exception {
+        NRC721Indexer indexer = new NRC721Indexer();
+        indexer.enableUndo(1);
+        indexer.apply(EventFiles.parse("{\"contractAddress\":\"" + OTHER_CONTRACT + "\",\"blockNumber\":3,"
+                + "\"event\":\"Transfer\",\"payload\":{\"from\":null,\"to\":\"" + A + "\",\"tokenId\":\"1\"}}"));
+        // keeps the records of block 4 only, so the contract cannot go back to block 2
+        indexer.replay(eventFile());
+        try {
+            indexer.rollbackTo(2);
+            fail("rolled back without the records of block 3");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(A, indexer.index(OTHER_CONTRACT).ownerOf(BigInteger.ONE));
+        assertContractState(indexer.index(CONTRACT));
+    }
+
+    static Path eventFile() throws Exception {
+        return Paths.get(NRC721IndexerTest.class.getResource("/events.jsonl").toURI());
+    }
+
+    static void assertContractState(NRC721Index index) {
+        assertEquals(4, index.getBlockNumber());
+        assertEquals(6, index.totalSupply());
+        assertEquals(C, index.ownerOf(BigInteger.valueOf(1)));
+        assertNull(index.ownerOf(BigInteger.valueOf(2)));
+        assertEquals(A, index.ownerOf(BigInteger.valueOf(10)));
+        assertEquals(B, index.ownerOf(BigInteger.valueOf(11)));
+        assertEquals(A, index.ownerOf(BigInteger.valueOf(12)));
+        assertEquals(C, index.ownerOf(BigInteger.valueOf(13)));
+        assertEquals(B, index.ownerOf(BigInteger.valueOf(14)));
+        assertEquals(2, index.balanceOf(A));
+        assertEquals(2, index.balanceOf(B));
+        assertEquals(2, index.balanceOf(C));
+        assertEquals(3, index.holderCount());
+        assertNull(index.getApproved(BigInteger.valueOf(1)));
+        assertEquals(B, index.getApproved(BigInteger.valueOf(10)));
+        assertEquals(B, index.getApproved(BigInteger.valueOf(12)));
+        assertFalse(index.isApprovedForAll(B, C));
+        assertArrayEquals(new BigInteger[]{BigInteger.valueOf(11), BigInteger.valueOf(14)},
+                sorted(index.tokensOfOwner(B, 0, 10)));
+        assertEquals(CONTRACT_DIGEST, index.ownershipDigest());
+    }
+
+    private static BigInteger[] sorted(BigInteger[] tokenIds) {
+        Arrays.sort(tokenIds);
+        return tokenIds;
+    }
+}
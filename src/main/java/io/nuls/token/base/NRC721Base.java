@@ -28,9 +28,14 @@ import io.nuls.contract.sdk.Msg;
 import io.nuls.contract.sdk.annotation.Required;
 import io.nuls.contract.sdk.annotation.View;
 import io.nuls.token.interfaces.INRC721;
-import io.nuls.token.model.Counter;
+import io.nuls.token.model.AddressRegistry;
+import io.nuls.token.model.LongHashMap;
+import io.nuls.token.model.LongHashSet;
+import io.nuls.token.model.LongIntHashMap;
+import io.nuls.token.model.NRC721TokenRecord;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -43,10 +48,48 @@ import static io.nuls.contract.sdk.Utils.require;
  */
 public class NRC721Base extends NRC165Base implements INRC721 {
 
-    private Map<BigInteger, Address> tokenOwner = new HashMap<BigInteger, Address>();
-    private Map<BigInteger, Address> tokenApprovals = new HashMap<BigInteger, Address>();
-    private Map<Address, Counter> ownedTokensCount = new HashMap<Address, Counter>();
-    private Map<Address, Map<Address, Boolean>> operatorApprovals = new HashMap<Address, Map<Address, Boolean>>();
+    /**
+     * Upper bound of `mintRangeBase`, which is also the longest walk back `ownerOf` makes to find an ownership slot
+     */
+    protected static final int MAX_MINT_RANGE = 500;
+    /**
+     * Upper bound of the number of tokens a view answers for: the `limit` of `tokens`, `tokensOfOwner` and `holders`,
+     *  and the length of `tokenURIs`
+     */
+    protected static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Key of the tokenIds that were never stored, see `tokenKey`
+     */
+    private static final long NO_KEY = Long.MIN_VALUE;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * token key -- NRC721TokenRecord, owner and approval of the token plus the fields of the subclasses
+     */
+    private LongHashMap<NRC721TokenRecord> tokenRecords = new LongHashMap<NRC721TokenRecord>();
+    /**
+     * tokenId outside [0, 2^63) -- its negative token key
+     */
+    private Map<BigInteger, Long> wideTokenKeys = new HashMap<BigInteger, Long>();
+    /**
+     * tokenIds outside [0, 2^63), the one with key `k` is at index `-1 - k`
+     */
+    private ArrayList<BigInteger> wideTokenIds = new ArrayList<BigInteger>();
+    private AddressRegistry addressRegistry = new AddressRegistry();
+    /**
+     * owner id -- number of tokens owned, holders whose balance drops to zero are removed
+     */
+    private LongIntHashMap ownedTokensCount = new LongIntHashMap();
+    /**
+     * (owner id, operator id) pairs packed by `operatorKey`, a revoked operator is removed
+     */
+    private LongHashSet operatorApprovals = new LongHashSet();
+    private boolean hasMintedRanges;
+    /**
+     * sum of `ownershipDigest(ownerSeed(owner), tokenId)` over all tokens, see `ownershipDigest()`
+     */
+    private long ownershipDigest;
 
     public NRC721Base() {
         super.registerInterface("INRC721");
@@ -55,19 +98,15 @@ public class NRC721Base extends NRC165Base implements INRC721 {
     @Override
     @View
     public int balanceOf(@Required Address owner) {
-        Counter balance = ownedTokensCount.get(owner);
-        if(balance == null) {
-            return 0;
-        }
-        return balance.current();
+        return ownedTokensCount.get(addressRegistry.idOf(owner));
     }
 
     @Override
     @View
     public Address ownerOf(@Required BigInteger tokenId) {
-        Address address = tokenOwner.get(tokenId);
-        require(address != null, "NRC721: owner query for nonexistent token");
-        return address;
+        NRC721TokenRecord slot = ownershipOf(tokenKey(tokenId));
+        require(slot != null, "NRC721: owner query for nonexistent token");
+        return addressRegistry.addressOf(slot.getOwnerId());
     }
 
     @Override
@@ -85,58 +124,161 @@ public class NRC721Base extends NRC165Base implements INRC721 {
 
     @Override
     public void transferFrom(@Required Address from, @Required Address to, @Required BigInteger tokenId) {
-        require(isApprovedOrOwner(Msg.sender(), tokenId), "NRC721: transfer caller is not owner nor approved");
+        NRC721TokenRecord record = claimOwnership(tokenId);
+        require(record != null, "NRC721: operator query for nonexistent token");
+        require(isApprovedOrOwner(Msg.sender(), record), "NRC721: transfer caller is not owner nor approved");
+
+        transferFromBase(from, to, tokenId, record);
+    }
+
+    /**
+     * Transfers the ownership of a batch of NFTs from `from` to `to`.
+     * The operator check runs once for the whole batch: when `Msg.sender()` is `from` or an authorized
+     *  operator of `from`, only the owner of each token is checked, otherwise every token must be approved to `Msg.sender()`.
+     * Emits a single TransferBatch event.
+     * @param from The current owner of the NFTs
+     * @param to The new owner
+     * @param tokenIds The NFTs to transfer
+     */
+    public void batchTransferFrom(@Required Address from, @Required Address to, @Required BigInteger[] tokenIds) {
+        require(tokenIds.length > 0, "NRC721: empty batch");
+        Address sender = Msg.sender();
+        int senderId = addressRegistry.idOf(sender);
+        int fromId = addressRegistry.idOf(from);
+        int toId = addressRegistry.register(to);
+        boolean isOperator = sender.equals(from) || isApprovedForAll(fromId, senderId);
+
+        long fromSeed = ownerSeed(from);
+        long toSeed = ownerSeed(to);
+        for (int i = 0; i < tokenIds.length; i++) {
+            BigInteger tokenId = tokenIds[i];
+            NRC721TokenRecord record = claimOwnership(tokenId);
+            require(record != null, "NRC721: operator query for nonexistent token");
+            require(record.getOwnerId() == fromId, "NRC721: transfer of token that is not own");
+            require(isOperator || senderId != 0 && senderId == record.getApprovedId(), "NRC721: transfer caller is not owner nor approved");
+
+            record.setApprovedId(0);
+            record.setOwnerId(toId);
+            ownershipDigest += ownershipDigest(toSeed, tokenId.longValue()) - ownershipDigest(fromSeed, tokenId.longValue());
+        }
+        emit(new TransferBatch(from, to, tokenIds));
+
+        ownedTokensCount.add(fromId, -tokenIds.length);
+        ownedTokensCount.add(toId, tokenIds.length);
+    }
+
+    /**
+     * Additive multiset hash of the (tokenId, owner) pairs of all tokens, updated by every mint, transfer and burn
+     *  in O(1) per token.
+     * <p>It is the sum modulo 2^64 of `fmix64(t ^ h) + fmix64(h + 0x9E3779B97F4A7C15)` over the tokens, where `t` is the
+     * low 64 bits of the tokenId, `h` is the 64-bit FNV-1a hash of the chars of `owner.toString()` and `fmix64` is the
+     * 64-bit finalizer of MurmurHash3. Each pair is mixed as a whole, so moving tokens between owners changes the digest
+     * even when every owner keeps the same count and tokenId sum. An indexer holding the same pairs computes the same value.</p>
+     * @return the digest in unsigned hexadecimal
+     */
+    @View
+    public String ownershipDigest() {
+        return Long.toHexString(ownershipDigest);
+    }
+
+    /**
+     * Works identically to `batchTransferFrom`, and then checks `onNRC721Received` on `to` for every token.
+     * @param from The current owner of the NFTs
+     * @param to The new owner
+     * @param tokenIds The NFTs to transfer
+     * @param data Additional data with no specified format, sent in call to `to`
+     */
+    public void safeBatchTransferFrom(@Required Address from, @Required Address to, @Required BigInteger[] tokenIds, @Required String data) {
+        batchTransferFrom(from, to, tokenIds);
+        for (int i = 0; i < tokenIds.length; i++) {
+            require(checkOnNRC721Received(from, to, tokenIds[i], data), "NRC721: transfer to non NRC721Receiver implementer");
+        }
+    }
 
-        transferFromBase(from, to, tokenId);
+    public void safeBatchTransferFrom(@Required Address from, @Required Address to, @Required BigInteger[] tokenIds) {
+        safeBatchTransferFrom(from, to, tokenIds, "");
     }
 
     @Override
     public void approve(@Required Address to, @Required BigInteger tokenId) {
-        Address owner = ownerOf(tokenId);
+        NRC721TokenRecord record = tokenRecords.get(tokenKey(tokenId));
+        Address owner = record != null && record.getOwnerId() != 0 ? addressRegistry.addressOf(record.getOwnerId()) : ownerOf(tokenId);
         require(!to.equals(owner), "NRC721: approval to current owner");
 
         require(Msg.sender().equals(owner) || isApprovedForAll(owner, Msg.sender()),
                 "NRC721: approve caller is not owner nor approved for all"
         );
 
-        tokenApprovals.put(tokenId, to);
+        if (record == null) {
+            record = obtainTokenRecord(tokenId);
+        }
+        record.setApprovedId(addressRegistry.register(to));
         emit(new Approval(owner, to, tokenId));
     }
 
+    /**
+     * Change or reaffirm the approved address for a batch of NFTs that have the same owner.
+     * Emits a single ApprovalBatch event.
+     * @param to The new approved NFT controller
+     * @param tokenIds The NFTs to approve
+     */
+    public void batchApprove(@Required Address to, @Required BigInteger[] tokenIds) {
+        require(tokenIds.length > 0, "NRC721: empty batch");
+        NRC721TokenRecord slot = ownershipOf(tokenKey(tokenIds[0]));
+        require(slot != null, "NRC721: owner query for nonexistent token");
+        int ownerId = slot.getOwnerId();
+        Address owner = addressRegistry.addressOf(ownerId);
+        require(!to.equals(owner), "NRC721: approval to current owner");
+
+        Address sender = Msg.sender();
+        require(sender.equals(owner) || isApprovedForAll(ownerId, addressRegistry.idOf(sender)),
+                "NRC721: approve caller is not owner nor approved for all"
+        );
+
+        int toId = addressRegistry.register(to);
+        for (int i = 0; i < tokenIds.length; i++) {
+            if (i > 0) {
+                slot = ownershipOf(tokenKey(tokenIds[i]));
+                require(slot != null, "NRC721: owner query for nonexistent token");
+                require(slot.getOwnerId() == ownerId, "NRC721: batch approval of tokens of different owners");
+            }
+            obtainTokenRecord(tokenIds[i]).setApprovedId(toId);
+        }
+        emit(new ApprovalBatch(owner, to, tokenIds));
+    }
+
     @Override
     public void setApprovalForAll(@Required Address operator, @Required boolean approved) {
         Address sender = Msg.sender();
         require(!operator.equals(sender), "NRC721: approve to caller");
 
-        Map<Address, Boolean> approvalsMap = operatorApprovals.get(sender);
-        if(approvalsMap == null) {
-            approvalsMap = new HashMap<Address, Boolean>();
-            operatorApprovals.put(sender, approvalsMap);
+        if (approved) {
+            operatorApprovals.add(operatorKey(addressRegistry.register(sender), addressRegistry.register(operator)));
+        } else {
+            int senderId = addressRegistry.idOf(sender);
+            int operatorId = addressRegistry.idOf(operator);
+            if (senderId != 0 && operatorId != 0) {
+                operatorApprovals.remove(operatorKey(senderId, operatorId));
+            }
         }
-        approvalsMap.put(operator, approved);
         emit(new ApprovalForAll(sender, operator, approved));
     }
 
     @Override
     @View
     public Address getApproved(@Required BigInteger tokenId) {
-        require(exists(tokenId), "NRC721: approved query for nonexistent token");
+        long key = tokenKey(tokenId);
+        NRC721TokenRecord record = tokenRecords.get(key);
+        boolean exists = record != null && record.getOwnerId() != 0 || rangeSlotOf(key) != NO_KEY;
+        require(exists, "NRC721: approved query for nonexistent token");
 
-        return tokenApprovals.get(tokenId);
+        return record == null ? null : addressRegistry.addressOf(record.getApprovedId());
     }
 
     @Override
     @View
     public boolean isApprovedForAll(@Required Address owner, @Required Address operator) {
-        Map<Address, Boolean> approvalsMap = operatorApprovals.get(owner);
-        if(approvalsMap == null) {
-            return false;
-        }
-        Boolean isApproved = approvalsMap.get(operator);
-        if(isApproved == null) {
-            return false;
-        }
-        return isApproved;
+        return isApprovedForAll(addressRegistry.idOf(owner), addressRegistry.idOf(operator));
     }
 
     protected boolean checkOnNRC721Received(Address from, Address to, BigInteger tokenId, String data) {
@@ -153,30 +295,47 @@ public class NRC721Base extends NRC165Base implements INRC721 {
     }
 
     protected boolean exists(BigInteger tokenId) {
-        Address owner = tokenOwner.get(tokenId);
-        return owner != null;
+        return ownershipOf(tokenKey(tokenId)) != null;
     }
 
     protected boolean isApprovedOrOwner(Address spender, BigInteger tokenId) {
-        require(exists(tokenId), "NRC721: operator query for nonexistent token");
-        Address owner = ownerOf(tokenId);
-        return (spender.equals(owner) || spender.equals(getApproved(tokenId)) || isApprovedForAll(owner, spender));
+        long key = tokenKey(tokenId);
+        NRC721TokenRecord slot = ownershipOf(key);
+        require(slot != null, "NRC721: operator query for nonexistent token");
+        int spenderId = addressRegistry.idOf(spender);
+        if (spenderId == 0) {
+            return false;
+        }
+        if (spenderId == slot.getOwnerId() || isApprovedForAll(slot.getOwnerId(), spenderId)) {
+            return true;
+        }
+        NRC721TokenRecord record = tokenRecords.get(key);
+        return record != null && spenderId == record.getApprovedId();
     }
 
     protected void transferFromBase(Address from, Address to, BigInteger tokenId) {
-        require(ownerOf(tokenId).equals(from), "NRC721: transfer of token that is not own");
+        NRC721TokenRecord record = claimOwnership(tokenId);
+        require(record != null, "NRC721: owner query for nonexistent token");
+
+        transferFromBase(from, to, tokenId, record);
+    }
 
-        clearApproval(tokenId);
+    /**
+     * Transfers one token whose record was claimed by `claimOwnership`. Every single-token transfer goes through here,
+     *  so subclasses keeping per-owner state override this method.
+     * @param record the record of `tokenId`, with a run of 1
+     */
+    protected void transferFromBase(Address from, Address to, BigInteger tokenId, NRC721TokenRecord record) {
+        int fromId = record.getOwnerId();
+        require(fromId == addressRegistry.idOf(from), "NRC721: transfer of token that is not own");
+        int toId = addressRegistry.register(to);
 
-        ownedTokensCount.get(from).decrement();
-        Counter counter = ownedTokensCount.get(to);
-        if(counter == null) {
-            counter = new Counter();
-            ownedTokensCount.put(to, counter);
-        }
-        counter.increment();
+        record.setApprovedId(0);
+        record.setOwnerId(toId);
 
-        tokenOwner.put(tokenId, to);
+        ownedTokensCount.add(fromId, -1);
+        ownedTokensCount.add(toId, 1);
+        ownershipDigest += ownershipDigest(ownerSeed(to), tokenId.longValue()) - ownershipDigest(ownerSeed(from), tokenId.longValue());
 
         emit(new Transfer(from, to, tokenId));
     }
@@ -184,24 +343,58 @@ public class NRC721Base extends NRC165Base implements INRC721 {
     protected void mintBase(Address to, BigInteger tokenId) {
         require(!exists(tokenId), "NRC721: token already minted");
 
-        tokenOwner.put(tokenId, to);
-        Counter counter = ownedTokensCount.get(to);
-        if(counter == null) {
-            counter = new Counter();
-            ownedTokensCount.put(to, counter);
-        }
-        counter.increment();
+        int toId = addressRegistry.register(to);
+        NRC721TokenRecord record = obtainTokenRecord(tokenId);
+        record.setOwnerId(toId);
+        record.setRun(1);
+        ownedTokensCount.add(toId, 1);
+        ownershipDigest += ownershipDigest(ownerSeed(to), tokenId.longValue());
 
         emit(new Transfer(null, to, tokenId));
     }
 
-    protected void burnBase(Address owner, BigInteger tokenId) {
-        require(ownerOf(tokenId).equals(owner), "NRC721: burn of token that is not own");
+    /**
+     * Mints `count` consecutive tokens starting at `startId` to `to`.
+     * Only the first token of the range gets a record, the others are resolved by `ownershipOf`
+     *  and get their own ownership slot on first transfer or burn.
+     * Emits a single TransferRange event.
+     * <p>The ownership digest is still updated once per token, which costs compute but no storage writes.
+     * NRC721EnumerableBase still indexes every token of the range for `tokenOfOwnerByIndex`, see its override.</p>
+     */
+    protected void mintRangeBase(Address to, BigInteger startId, int count) {
+        require(count > 0 && count <= MAX_MINT_RANGE, "NRC721: invalid mint range size");
+        require(startId.signum() >= 0 && startId.add(BigInteger.valueOf(count)).bitLength() < 64, "NRC721: mint range out of bounds");
+
+        long startKey = startId.longValue();
+        for (int i = 1; i < count; i++) {
+            NRC721TokenRecord record = tokenRecords.get(startKey + i);
+            require(record == null || record.getOwnerId() == 0, "NRC721: token already minted");
+        }
+        require(ownershipOf(startKey) == null, "NRC721: token already minted");
+
+        int toId = addressRegistry.register(to);
+        NRC721TokenRecord record = obtainTokenRecord(startId);
+        record.setOwnerId(toId);
+        record.setRun(count);
+        hasMintedRanges = true;
+        ownedTokensCount.add(toId, count);
+        long toSeed = ownerSeed(to);
+        for (int i = 0; i < count; i++) {
+            ownershipDigest += ownershipDigest(toSeed, startKey + i);
+        }
 
-        clearApproval(tokenId);
+        emit(new TransferRange(null, to, startId, count));
+    }
+
+    protected void burnBase(Address owner, BigInteger tokenId) {
+        NRC721TokenRecord record = claimOwnership(tokenId);
+        require(record != null, "NRC721: owner query for nonexistent token");
+        int ownerId = addressRegistry.idOf(owner);
+        require(record.getOwnerId() == ownerId, "NRC721: burn of token that is not own");
 
-        ownedTokensCount.get(owner).decrement();
-        tokenOwner.remove(tokenId);
+        ownedTokensCount.add(ownerId, -1);
+        tokenRecords.remove(tokenKey(tokenId));
+        ownershipDigest -= ownershipDigest(ownerSeed(owner), tokenId.longValue());
 
         emit(new Transfer(owner, null, tokenId));
     }
@@ -210,7 +403,221 @@ public class NRC721Base extends NRC165Base implements INRC721 {
         burnBase(ownerOf(tokenId), tokenId);
     }
 
-    private void clearApproval(BigInteger tokenId) {
-        tokenApprovals.remove(tokenId);
+    /**
+     * @return the record of `tokenId`, or null if nothing is stored for it
+     */
+    protected NRC721TokenRecord tokenRecord(BigInteger tokenId) {
+        return tokenRecords.get(tokenKey(tokenId));
+    }
+
+    /**
+     * @return the record of `tokenId`, created if nothing is stored for it yet
+     */
+    protected NRC721TokenRecord obtainTokenRecord(BigInteger tokenId) {
+        long key = internTokenKey(tokenId);
+        NRC721TokenRecord record = tokenRecords.get(key);
+        if (record == null) {
+            record = new NRC721TokenRecord();
+            tokenRecords.put(key, record);
+        }
+        return record;
+    }
+
+    /**
+     * @return the record stored under the token key `key`, or null
+     */
+    protected NRC721TokenRecord tokenRecord(long key) {
+        return tokenRecords.get(key);
+    }
+
+    /**
+     * @return the key of a tokenId that has a record, see `tokenKey`
+     */
+    protected long tokenKeyOf(BigInteger tokenId) {
+        long key = tokenKey(tokenId);
+        require(key != NO_KEY, "NRC721: token key not found");
+        return key;
+    }
+
+    /**
+     * @return the tokenId of the token key `key`
+     */
+    protected BigInteger tokenIdOf(long key) {
+        return key >= 0 ? BigInteger.valueOf(key) : wideTokenIds.get((int) (-1L - key));
+    }
+
+    /**
+     * @return the balance of the address with id `ownerId`
+     */
+    protected int balanceOfId(int ownerId) {
+        return ownedTokensCount.get(ownerId);
+    }
+
+    /**
+     * @return the id of `address`, 0 if it never held or approved a token
+     */
+    protected int addressId(Address address) {
+        return addressRegistry.idOf(address);
+    }
+
+    /**
+     * @return the address registered with id `id`
+     */
+    protected Address addressOf(int id) {
+        return addressRegistry.addressOf(id);
+    }
+
+    /**
+     * @param ownerSeed `ownerSeed(owner)`
+     * @param tokenId the low 64 bits of the tokenId
+     * @return the term of one (tokenId, owner) pair in `ownershipDigest()`
+     */
+    protected static long ownershipDigest(long ownerSeed, long tokenId) {
+        return fmix64(tokenId ^ ownerSeed) + fmix64(ownerSeed + GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return the seed of `owner` in `ownershipDigest`, to be computed once for all the tokens of an owner
+     */
+    protected static long ownerSeed(Address owner) {
+        return addressSeed(owner.toString());
+    }
+
+    /**
+     * 64-bit FNV-1a over the chars of `address`, so that two owners share a seed only by a 64-bit collision
+     */
+    private static long addressSeed(String address) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < address.length(); i++) {
+            h ^= address.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Token ids in [0, 2^63) are their own key, the others get a negative key the first time they are stored.
+     * @return the key of `tokenId`, NO_KEY if it was never stored
+     */
+    private long tokenKey(BigInteger tokenId) {
+        if (tokenId.signum() >= 0 && tokenId.bitLength() < 64) {
+            return tokenId.longValue();
+        }
+        Long key = wideTokenKeys.get(tokenId);
+        return key == null ? NO_KEY : key;
+    }
+
+    private long internTokenKey(BigInteger tokenId) {
+        long key = tokenKey(tokenId);
+        if (key == NO_KEY) {
+            key = -1L - wideTokenIds.size();
+            wideTokenKeys.put(tokenId, key);
+            wideTokenIds.add(tokenId);
+        }
+        return key;
+    }
+
+    private boolean isApprovedOrOwner(Address spender, NRC721TokenRecord record) {
+        int spenderId = addressRegistry.idOf(spender);
+        if (spenderId == 0) {
+            return false;
+        }
+        return spenderId == record.getOwnerId() || spenderId == record.getApprovedId() || isApprovedForAll(record.getOwnerId(), spenderId);
+    }
+
+    private boolean isApprovedForAll(int ownerId, int operatorId) {
+        if (ownerId == 0 || operatorId == 0) {
+            return false;
+        }
+        return operatorApprovals.contains(operatorKey(ownerId, operatorId));
+    }
+
+    private static long operatorKey(int ownerId, int operatorId) {
+        return ((long) ownerId << 32) | (operatorId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the ownership slot holding the owner of the token, or null if the token does not exist
+     */
+    private NRC721TokenRecord ownershipOf(long key) {
+        NRC721TokenRecord record = tokenRecords.get(key);
+        if (record != null && record.getOwnerId() != 0) {
+            return record;
+        }
+        long slotKey = rangeSlotOf(key);
+        return slotKey == NO_KEY ? null : tokenRecords.get(slotKey);
+    }
+
+    /**
+     * @return the key of the first token of the minted range the token implicitly belongs to, NO_KEY if there is none
+     */
+    private long rangeSlotOf(long key) {
+        if (!hasMintedRanges || key < 0) {
+            return NO_KEY;
+        }
+        // walk back to the nearest slot, the token belongs to it only if it lies inside that slot's run
+        for (int distance = 1; distance < MAX_MINT_RANGE && distance <= key; distance++) {
+            NRC721TokenRecord slot = tokenRecords.get(key - distance);
+            if (slot != null && slot.getOwnerId() != 0) {
+                return distance < slot.getRun() ? key - distance : NO_KEY;
+            }
+        }
+        return NO_KEY;
+    }
+
+    /**
+     * Gives `tokenId` its own ownership slot, splitting the minted range it belongs to.
+     * The tokens after `tokenId` keep their owner through a new slot.
+     * @return the record of `tokenId`, or null if the token does not exist
+     */
+    private NRC721TokenRecord claimOwnership(BigInteger tokenId) {
+        long key = tokenKey(tokenId);
+        NRC721TokenRecord record = tokenRecords.get(key);
+        NRC721TokenRecord slot;
+        int offset;
+        if (record != null && record.getOwnerId() != 0) {
+            if (record.getRun() == 1) {
+                return record;
+            }
+            slot = record;
+            offset = 0;
+        } else {
+            long slotKey = rangeSlotOf(key);
+            if (slotKey == NO_KEY) {
+                return null;
+            }
+            slot = tokenRecords.get(slotKey);
+            offset = (int) (key - slotKey);
+        }
+
+        int rest = slot.getRun() - offset - 1;
+        if (rest > 0) {
+            NRC721TokenRecord next = tokenRecords.get(key + 1);
+            if (next == null) {
+                next = new NRC721TokenRecord();
+                tokenRecords.put(key + 1, next);
+            }
+            next.setOwnerId(slot.getOwnerId());
+            next.setRun(rest);
+        }
+        if (offset > 0) {
+            slot.setRun(offset);
+            if (record == null) {
+                record = new NRC721TokenRecord();
+                tokenRecords.put(key, record);
+            }
+            record.setOwnerId(slot.getOwnerId());
+        }
+        record.setRun(1);
+        return record;
     }
 }
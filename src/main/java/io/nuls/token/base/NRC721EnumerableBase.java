@@ -27,11 +27,13 @@ import io.nuls.contract.sdk.Address;
 import io.nuls.contract.sdk.annotation.Required;
 import io.nuls.contract.sdk.annotation.View;
 import io.nuls.token.interfaces.INRC721Enumerable;
+import io.nuls.token.model.LongArrayList;
+import io.nuls.token.model.LongHashMap;
+import io.nuls.token.model.LongIntHashMap;
+import io.nuls.token.model.LongRangeSet;
+import io.nuls.token.model.NRC721TokenRecord;
 
 import java.math.BigInteger;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
 
 import static io.nuls.contract.sdk.Utils.require;
 
@@ -41,10 +43,32 @@ import static io.nuls.contract.sdk.Utils.require;
  */
 public class NRC721EnumerableBase extends NRC721Base implements INRC721Enumerable {
 
-    private Map<Address, LinkedList<BigInteger>> ownedTokens = new HashMap<Address, LinkedList<BigInteger>>();
-    private Map<BigInteger, Integer> ownedTokensIndex = new HashMap<BigInteger, Integer>();
-    private LinkedList<BigInteger> allTokens = new LinkedList<BigInteger>();
-    private Map<BigInteger, Integer> allTokensIndex = new HashMap<BigInteger, Integer>();
+    /**
+     * Number of token keys in each stored page of an owner's tokens
+     */
+    private static final int OWNED_TOKENS_PAGE_SIZE = 64;
+
+    /**
+     * (owner id, page number) packed by `pageKey` -- token keys of the owner from index pageNo * OWNED_TOKENS_PAGE_SIZE,
+     * so a transfer rewrites at most two pages whatever the balance. The owner's token count is its balance.
+     */
+    private LongHashMap<LongArrayList> ownedTokenPages = new LongHashMap<LongArrayList>();
+    /**
+     * token keys of all tokens, in runs of consecutive keys, so a contiguous drop is a single entry
+     */
+    private LongRangeSet allTokens = new LongRangeSet();
+    /**
+     * ids of the addresses with a non-zero balance
+     */
+    private LongArrayList holders = new LongArrayList();
+    /**
+     * holder id -- its index in `holders` plus one
+     */
+    private LongIntHashMap holderIndexes = new LongIntHashMap();
+    /**
+     * part of the ownership digest contributed by the tokens of each holder, in the order of `holders`
+     */
+    private LongArrayList holderDigests = new LongArrayList();
 
     public NRC721EnumerableBase() {
         super.registerInterface("INRC721Enumerable");
@@ -59,28 +83,86 @@ public class NRC721EnumerableBase extends NRC721Base implements INRC721Enumerabl
     @Override
     @View
     public BigInteger tokenOfOwnerByIndex(@Required Address owner, @Required int index) {
-        require(index < balanceOf(owner), "NRC721Enumerable: owner index out of bounds");
-        LinkedList<BigInteger> tokens = ownedTokens.get(owner);
-        if(tokens == null) {
-            return null;
-        }
-        return tokens.get(index);
+        require(index >= 0 && index < balanceOf(owner), "NRC721Enumerable: owner index out of bounds");
+        return tokenIdOf(ownedTokenKey(addressId(owner), index));
     }
 
     @Override
     @View
     public BigInteger tokenByIndex(@Required int index) {
-        require(index < totalSupply(), "NRC721Enumerable: global index out of bounds");
-        return allTokens.get(index);
+        require(index >= 0 && index < totalSupply(), "NRC721Enumerable: global index out of bounds");
+        return tokenIdOf(allTokens.get(index));
     }
 
     @Override
-    public void transferFrom(@Required Address from, @Required Address to, @Required BigInteger tokenId) {
-        super.transferFrom(from, to, tokenId);
+    @View
+    public BigInteger[] tokens(@Required int offset, @Required int limit) {
+        BigInteger[] tokenIds = new BigInteger[pageLength(allTokens.size(), offset, limit)];
+        for (int i = 0; i < tokenIds.length; i++) {
+            tokenIds[i] = tokenIdOf(allTokens.get(offset + i));
+        }
+        return tokenIds;
+    }
 
-        removeTokenFromOwnerEnumeration(from, tokenId);
+    @Override
+    @View
+    public BigInteger[] tokensOfOwner(@Required Address owner, @Required int offset, @Required int limit) {
+        int ownerId = addressId(owner);
+        return ownedTokenIds(ownerId, offset, pageLength(balanceOfId(ownerId), offset, limit));
+    }
 
-        addTokenToOwnerEnumeration(to, tokenId);
+    /**
+     * @return the number of addresses owning at least one token
+     */
+    @View
+    public int holderCount() {
+        return holders.size();
+    }
+
+    /**
+     * @return the holders from index `offset`, at most `limit` of them (sort order not specified)
+     */
+    @View
+    public Address[] holders(@Required int offset, @Required int limit) {
+        Address[] page = new Address[pageLength(holders.size(), offset, limit)];
+        for (int i = 0; i < page.length; i++) {
+            page[i] = addressOf((int) holders.get(offset + i));
+        }
+        return page;
+    }
+
+    /**
+     * @return the part of `ownershipDigest()` contributed by the tokens of `owner`, in unsigned hexadecimal
+     */
+    @View
+    public String ownershipDigestOf(@Required Address owner) {
+        int holderIndex = holderIndexes.get(addressId(owner)) - 1;
+        if (holderIndex < 0) {
+            return "0";
+        }
+        return Long.toHexString(holderDigests.get(holderIndex));
+    }
+
+    @Override
+    public void batchTransferFrom(@Required Address from, @Required Address to, @Required BigInteger[] tokenIds) {
+        super.batchTransferFrom(from, to, tokenIds);
+
+        int fromId = addressId(from);
+        int toId = addressId(to);
+        if (fromId == toId) {
+            return;
+        }
+        int fromLength = balanceOfId(fromId) + tokenIds.length;
+        int toLength = balanceOfId(toId) - tokenIds.length;
+        long fromSeed = ownerSeed(from);
+        long toSeed = ownerSeed(to);
+        for (int i = 0; i < tokenIds.length; i++) {
+            long key = tokenKeyOf(tokenIds[i]);
+            NRC721TokenRecord record = tokenRecord(key);
+            removeTokenFromOwnerEnumeration(fromId, fromLength--, record, fromSeed);
+
+            addTokenToOwnerEnumeration(toId, toLength++, key, record, toSeed);
+        }
     }
 
     @Override
@@ -95,80 +177,178 @@ public class NRC721EnumerableBase extends NRC721Base implements INRC721Enumerabl
         require(super.checkOnNRC721Received(from, to, tokenId, data), "NRC721: transfer to non ERC721Receiver implementer");
     }
 
+    @Override
+    protected void transferFromBase(Address from, Address to, BigInteger tokenId, NRC721TokenRecord record) {
+        super.transferFromBase(from, to, tokenId, record);
+
+        int fromId = addressId(from);
+        int toId = addressId(to);
+        if (fromId == toId) {
+            return;
+        }
+        // the balances are already updated
+        removeTokenFromOwnerEnumeration(fromId, balanceOfId(fromId) + 1, record, ownerSeed(from));
+
+        addTokenToOwnerEnumeration(toId, balanceOfId(toId) - 1, tokenKeyOf(tokenId), record, ownerSeed(to));
+    }
+
     @Override
     protected void mintBase(Address to, BigInteger tokenId) {
         super.mintBase(to, tokenId);
 
-        addTokenToOwnerEnumeration(to, tokenId);
+        int toId = addressId(to);
+        long key = tokenKeyOf(tokenId);
+        NRC721TokenRecord record = tokenRecord(key);
+        addTokenToOwnerEnumeration(toId, balanceOfId(toId) - 1, key, record, ownerSeed(to));
 
-        addTokenToAllTokensEnumeration(tokenId);
+        allTokens.add(key);
+    }
+
+    /**
+     * The ownership stays a single slot, but the owner enumeration is not derived lazily: every token of the range
+     *  gets a record holding its owner index and an entry in the owner's pages, so the cost here is O(count).
+     *  Only the global enumeration keeps the range as a single run.
+     */
+    @Override
+    protected void mintRangeBase(Address to, BigInteger startId, int count) {
+        super.mintRangeBase(to, startId, count);
+
+        int toId = addressId(to);
+        int toLength = balanceOfId(toId) - count;
+        long toSeed = ownerSeed(to);
+        BigInteger tokenId = startId;
+        for (int i = 0; i < count; i++) {
+            NRC721TokenRecord record = obtainTokenRecord(tokenId);
+            long key = tokenKeyOf(tokenId);
+            addTokenToOwnerEnumeration(toId, toLength++, key, record, toSeed);
+            tokenId = tokenId.add(BigInteger.ONE);
+        }
+
+        allTokens.addRange(tokenKeyOf(startId), count);
     }
 
     @Override
     protected void burnBase(Address owner, BigInteger tokenId) {
+        // the record is deleted with the token, keep it to read the indexes
+        long key = tokenKeyOf(tokenId);
+        NRC721TokenRecord record = tokenRecord(key);
+        int ownerId = addressId(owner);
         super.burnBase(owner, tokenId);
 
-        removeTokenFromOwnerEnumeration(owner, tokenId);
-        // Since tokenId will be deleted, we can clear its slot in _ownedTokensIndex to trigger a gas refund
-        ownedTokensIndex.remove(tokenId);
+        removeTokenFromOwnerEnumeration(ownerId, balanceOfId(ownerId) + 1, record, ownerSeed(owner));
+
+        allTokens.remove(key);
+    }
+
+    /**
+     * @return the tokenIds of `owner`, in enumeration order
+     */
+    protected BigInteger[] tokensOfOwner(Address owner) {
+        int ownerId = addressId(owner);
+        return ownedTokenIds(ownerId, 0, balanceOfId(ownerId));
+    }
 
-        removeTokenFromAllTokensEnumeration(tokenId);
+    /**
+     * @return the number of tokens in the page from `offset` of a list of `size` tokens
+     */
+    private static int pageLength(int size, int offset, int limit) {
+        require(offset >= 0, "NRC721Enumerable: negative offset");
+        require(limit > 0 && limit <= MAX_PAGE_SIZE, "NRC721Enumerable: limit must be between 1 and " + MAX_PAGE_SIZE);
+        return offset >= size ? 0 : Math.min(limit, size - offset);
     }
 
-    protected LinkedList<BigInteger> tokensOfOwner(Address owner) {
-        return ownedTokens.get(owner);
+    private static long pageKey(int ownerId, int pageNo) {
+        return ((long) ownerId << 32) | (pageNo & 0xFFFFFFFFL);
     }
 
-    private void addTokenToOwnerEnumeration(Address to, BigInteger tokenId) {
-        int index = 0;
-        LinkedList<BigInteger> tokens = ownedTokens.get(to);
-        if(tokens == null) {
-            tokens = new LinkedList<BigInteger>();
+    private long ownedTokenKey(int ownerId, int index) {
+        return ownedTokenPages.get(pageKey(ownerId, index / OWNED_TOKENS_PAGE_SIZE)).get(index % OWNED_TOKENS_PAGE_SIZE);
+    }
+
+    private BigInteger[] ownedTokenIds(int ownerId, int offset, int length) {
+        BigInteger[] tokenIds = new BigInteger[length];
+        LongArrayList page = null;
+        for (int i = 0; i < length; i++) {
+            int index = offset + i;
+            if (page == null || index % OWNED_TOKENS_PAGE_SIZE == 0) {
+                page = ownedTokenPages.get(pageKey(ownerId, index / OWNED_TOKENS_PAGE_SIZE));
+            }
+            tokenIds[i] = tokenIdOf(page.get(index % OWNED_TOKENS_PAGE_SIZE));
         }
-        ownedTokensIndex.put(tokenId, tokens.size());
-        tokens.add(tokenId);
+        return tokenIds;
     }
 
-    private void addTokenToAllTokensEnumeration(BigInteger tokenId) {
-        allTokensIndex.put(tokenId, allTokens.size());
-        allTokens.add(tokenId);
+    /**
+     * @param length number of tokens of the owner before the token is added
+     * @param toSeed `ownerSeed` of the owner
+     */
+    private void addTokenToOwnerEnumeration(int toId, int length, long key, NRC721TokenRecord record, long toSeed) {
+        long pageKey = pageKey(toId, length / OWNED_TOKENS_PAGE_SIZE);
+        LongArrayList page = ownedTokenPages.get(pageKey);
+        if (page == null) {
+            page = new LongArrayList();
+            ownedTokenPages.put(pageKey, page);
+        }
+        record.setOwnedTokensIndex(length);
+        page.add(key);
+        if (length == 0) {
+            holderIndexes.put(toId, holders.size() + 1);
+            holders.add(toId);
+            holderDigests.add(ownershipDigest(toSeed, digestValue(key)));
+        } else {
+            int holderIndex = holderIndexes.get(toId) - 1;
+            holderDigests.set(holderIndex, holderDigests.get(holderIndex) + ownershipDigest(toSeed, digestValue(key)));
+        }
     }
 
-    private void removeTokenFromOwnerEnumeration(Address from, BigInteger tokenId) {
+    /**
+     * @param length number of tokens of the owner before the token is removed
+     * @param fromSeed `ownerSeed` of the owner
+     */
+    private void removeTokenFromOwnerEnumeration(int fromId, int length, NRC721TokenRecord record, long fromSeed) {
         // To prevent a gap in from's tokens array, we store the last token in the index of the token to delete, and
         // then delete the last slot (swap and pop).
 
-        LinkedList<BigInteger> tokens = ownedTokens.get(from);
-        int lastTokenIndex = tokens.size() - 1;
-        int tokenIndex = ownedTokensIndex.get(tokenId);
+        int lastTokenIndex = length - 1;
+        int tokenIndex = record.getOwnedTokensIndex();
 
-        BigInteger lastTokenId = tokens.removeLast();
+        long lastPageKey = pageKey(fromId, lastTokenIndex / OWNED_TOKENS_PAGE_SIZE);
+        LongArrayList lastPage = ownedTokenPages.get(lastPageKey);
+        long lastTokenKey = lastPage.removeLast();
+        if (lastPage.isEmpty()) {
+            ownedTokenPages.remove(lastPageKey);
+        }
+        long tokenKey = lastTokenKey;
         // When the token to delete is the last token, the swap operation is unnecessary
         if (tokenIndex != lastTokenIndex) {
-            tokens.remove(tokenIndex);
-            tokens.add(tokenIndex, lastTokenId);
-            ownedTokensIndex.put(lastTokenId, tokenIndex); // Update the moved token's index
+            tokenKey = ownedTokenPages.get(pageKey(fromId, tokenIndex / OWNED_TOKENS_PAGE_SIZE)).set(tokenIndex % OWNED_TOKENS_PAGE_SIZE, lastTokenKey);
+            tokenRecord(lastTokenKey).setOwnedTokensIndex(tokenIndex); // Update the moved token's index
+        }
+        if (length == 1) {
+            removeHolder(fromId);
+        } else {
+            int holderIndex = holderIndexes.get(fromId) - 1;
+            holderDigests.set(holderIndex, holderDigests.get(holderIndex) - ownershipDigest(fromSeed, digestValue(tokenKey)));
         }
-
     }
 
-    private void removeTokenFromAllTokensEnumeration(BigInteger tokenId) {
-        // To prevent a gap in the tokens array, we store the last token in the index of the token to delete, and
-        // then delete the last slot (swap and pop).
-
-        int tokenIndex = allTokensIndex.get(tokenId);
-
-        // When the token to delete is the last token, the swap operation is unnecessary. However, since this occurs so
-        // rarely (when the last minted token is burnt) that we still do the swap here to avoid the gas cost of adding
-        // an 'if' statement (like in _removeTokenFromOwnerEnumeration)
-        BigInteger lastTokenId = allTokens.removeLast();
-
-        allTokens.remove(tokenIndex);
-        allTokens.add(tokenIndex, lastTokenId);
-        ownedTokensIndex.put(lastTokenId, tokenIndex); // Update the moved token's index
+    private void removeHolder(int holderId) {
+        // swap and pop, as for the tokens
+        int holderIndex = holderIndexes.remove(holderId) - 1;
+        long lastHolderId = holders.removeLast();
+        long lastDigest = holderDigests.removeLast();
+        if (holderIndex != holders.size()) {
+            holders.set(holderIndex, lastHolderId);
+            holderDigests.set(holderIndex, lastDigest);
+            holderIndexes.put(lastHolderId, holderIndex + 1);
+        }
+    }
 
-        // This also deletes the contents at the last position of the array
-        allTokensIndex.remove(tokenId);
+    /**
+     * @return the low 64 bits of the tokenId of `key`, as mixed by `ownershipDigest`
+     */
+    private long digestValue(long key) {
+        return key >= 0 ? key : tokenIdOf(key).longValue();
     }
 
 }
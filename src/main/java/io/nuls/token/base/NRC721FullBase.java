@@ -26,10 +26,10 @@ package io.nuls.token.base;
 import io.nuls.contract.sdk.Address;
 import io.nuls.contract.sdk.annotation.Required;
 import io.nuls.contract.sdk.annotation.View;
+import io.nuls.token.model.NRC721TokenRecord;
+import io.nuls.token.model.TokenURIStore;
 
 import java.math.BigInteger;
-import java.util.HashMap;
-import java.util.Map;
 
 import static io.nuls.contract.sdk.Utils.require;
 
@@ -41,7 +41,7 @@ public class NRC721FullBase extends NRC721EnumerableBase {
 
     private String name;
     private String symbol;
-    private Map<BigInteger, String> tokenURIs = new HashMap<BigInteger, String>();
+    private TokenURIStore tokenURIStore = new TokenURIStore();
 
     public NRC721FullBase(String name, String symbol) {
         // 由于Java没有多继承，所以挑选实现逻辑较少的INRC721Metadata在Full类里重新实现一次
@@ -63,22 +63,87 @@ public class NRC721FullBase extends NRC721EnumerableBase {
     @View
     public String tokenURI(@Required BigInteger tokenId) {
         require(exists(tokenId), "NRC721Metadata: URI query for nonexistent token");
-        return tokenURIs.get(tokenId);
+        return tokenURIStore.tokenURI(tokenId, tokenRecord(tokenId));
     }
 
+    /**
+     * @param tokenIds at most MAX_PAGE_SIZE tokenIds
+     * @return the URI of each of `tokenIds`, in the same order
+     */
+    @View
+    public String[] tokenURIs(@Required BigInteger[] tokenIds) {
+        require(tokenIds.length <= MAX_PAGE_SIZE, "NRC721Metadata: at most " + MAX_PAGE_SIZE + " tokenIds per query");
+        String[] result = new String[tokenIds.length];
+        for (int i = 0; i < tokenIds.length; i++) {
+            result[i] = tokenURI(tokenIds[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Stores the URI of one token, which takes precedence over the base URI. A null `uri` removes it.
+     */
     protected void setTokenURI(BigInteger tokenId, String uri) {
         require(exists(tokenId), "NRC721Metadata: URI set of nonexistent token");
-        tokenURIs.put(tokenId, uri);
+        tokenURIStore.setTokenURI(uri == null ? tokenRecord(tokenId) : obtainTokenRecord(tokenId), uri);
     }
 
-    @Override
-    protected void burnBase(Address owner, BigInteger tokenId) {
-        super.burnBase(owner, tokenId);
-        tokenURIs.remove(tokenId);
+    /**
+     * Sets `uris[i]` as the URI of `tokenIds[i]`, as `setTokenURI` does.
+     */
+    protected void setTokenURIs(BigInteger[] tokenIds, String[] uris) {
+        require(tokenIds.length > 0, "NRC721Metadata: empty batch");
+        require(tokenIds.length == uris.length, "NRC721Metadata: tokenIds and uris differ in length");
+        for (int i = 0; i < tokenIds.length; i++) {
+            setTokenURI(tokenIds[i], uris[i]);
+        }
+    }
+
+    /**
+     * Derives the URI of every token without a URI of its own as `baseURI + tokenId + suffix`.
+     * @param baseURI null to derive no URI
+     * @param suffix may be null
+     */
+    protected void setBaseURI(String baseURI, String suffix) {
+        tokenURIStore.setBaseURI(baseURI, suffix);
+    }
+
+    /**
+     * Starts a delayed reveal: tokens without a URI of their own return `placeholderURI` until `reveal`.
+     * Metadata files are expected under the base URI as `0` to `collectionSize - 1`.
+     * Can only be called once.
+     */
+    protected void setRevealMode(String placeholderURI, BigInteger collectionSize) {
+        tokenURIStore.setRevealMode(placeholderURI, collectionSize);
+    }
+
+    /**
+     * Reveals every token at once, token `tokenId` getting the metadata file `(tokenId + seed) mod collectionSize`.
+     * To be called once, after mint-out. The seed is not bound by anything on chain: holders trust the owner
+     * to draw it at random rather than pick it knowing who holds which token.
+     */
+    protected void reveal(BigInteger seed) {
+        tokenURIStore.reveal(seed);
+    }
+
+    /**
+     * Adds a common URI beginning, e.g. "ipfs://", to the dictionary that stored URIs are encoded against:
+     * URIs set from now on that start with it are stored without it. At most TokenURIStore.MAX_PREFIXES are kept.
+     */
+    protected void addTokenURIPrefix(String prefix) {
+        tokenURIStore.addPrefix(prefix);
     }
 
     protected void mintWithTokenURIBase(Address to, BigInteger tokenId, String tokenURI) {
-        this.setTokenURI(tokenId, tokenURI);
         super.mintBase(to, tokenId);
+        this.setTokenURI(tokenId, tokenURI);
+    }
+
+    @Override
+    protected void burnBase(Address owner, BigInteger tokenId) {
+        // the record is deleted with the token, keep it to release the URI
+        NRC721TokenRecord record = tokenRecord(tokenId);
+        super.burnBase(owner, tokenId);
+        tokenURIStore.release(record);
     }
 }
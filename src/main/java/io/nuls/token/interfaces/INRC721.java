@@ -249,4 +249,132 @@ public interface INRC721 {
             this.approved = approved;
         }
     }
+
+    /**
+     * Same meaning as one `Transfer` event for each of `tokenIds`, emitted by bulk transfers instead of N events.
+     */
+    class TransferBatch implements Event {
+        private Address from;
+        private Address to;
+        private BigInteger[] tokenIds;
+
+        public TransferBatch(Address from, Address to, @Required BigInteger[] tokenIds) {
+            this.from = from;
+            this.to = to;
+            this.tokenIds = tokenIds;
+        }
+
+        public Address getFrom() {
+            return from;
+        }
+
+        public void setFrom(Address from) {
+            this.from = from;
+        }
+
+        public Address getTo() {
+            return to;
+        }
+
+        public void setTo(Address to) {
+            this.to = to;
+        }
+
+        public BigInteger[] getTokenIds() {
+            return tokenIds;
+        }
+
+        public void setTokenIds(BigInteger[] tokenIds) {
+            this.tokenIds = tokenIds;
+        }
+    }
+
+    /**
+     * Same meaning as one `Transfer` event for each token in [`startTokenId`, `startTokenId` + `count`),
+     *  emitted when consecutive tokens are minted or moved together.
+     */
+    class TransferRange implements Event {
+        private Address from;
+        private Address to;
+        private BigInteger startTokenId;
+        private int count;
+
+        public TransferRange(Address from, Address to, @Required BigInteger startTokenId, @Required int count) {
+            this.from = from;
+            this.to = to;
+            this.startTokenId = startTokenId;
+            this.count = count;
+        }
+
+        public Address getFrom() {
+            return from;
+        }
+
+        public void setFrom(Address from) {
+            this.from = from;
+        }
+
+        public Address getTo() {
+            return to;
+        }
+
+        public void setTo(Address to) {
+            this.to = to;
+        }
+
+        public BigInteger getStartTokenId() {
+            return startTokenId;
+        }
+
+        public void setStartTokenId(BigInteger startTokenId) {
+            this.startTokenId = startTokenId;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+
+    /**
+     * Same meaning as one `Approval` event for each of `tokenIds`, emitted by bulk approvals instead of N events.
+     */
+    class ApprovalBatch implements Event {
+        private Address owner;
+        private Address approved;
+        private BigInteger[] tokenIds;
+
+        public ApprovalBatch(@Required Address owner, @Required Address approved, @Required BigInteger[] tokenIds) {
+            this.owner = owner;
+            this.approved = approved;
+            this.tokenIds = tokenIds;
+        }
+
+        public Address getOwner() {
+            return owner;
+        }
+
+        public void setOwner(Address owner) {
+            this.owner = owner;
+        }
+
+        public Address getApproved() {
+            return approved;
+        }
+
+        public void setApproved(Address approved) {
+            this.approved = approved;
+        }
+
+        public BigInteger[] getTokenIds() {
+            return tokenIds;
+        }
+
+        public void setTokenIds(BigInteger[] tokenIds) {
+            this.tokenIds = tokenIds;
+        }
+    }
 }
@@ -61,4 +61,25 @@ public interface INRC721Enumerable {
      */
     @View
     BigInteger tokenOfOwnerByIndex(@Required Address owner, @Required int index);
+
+    /**
+     * Enumerate a page of valid NFTs
+     * @param offset The index of the first NFT of the page, as in `tokenByIndex`
+     * @param limit The maximum number of NFTs returned, at most the page size of the contract
+     * @return The token identifiers from index `offset`, in the order of `tokenByIndex`,
+     *   an empty array if `offset` >= `totalSupply()`.
+     */
+    @View
+    BigInteger[] tokens(@Required int offset, @Required int limit);
+
+    /**
+     * Enumerate a page of the NFTs assigned to an owner
+     * @param owner An address where we are interested in NFTs owned by them
+     * @param offset The index of the first NFT of the page, as in `tokenOfOwnerByIndex`
+     * @param limit The maximum number of NFTs returned, at most the page size of the contract
+     * @return The token identifiers from index `offset`, in the order of `tokenOfOwnerByIndex`,
+     *   an empty array if `offset` >= `balanceOf(owner)`.
+     */
+    @View
+    BigInteger[] tokensOfOwner(@Required Address owner, @Required int offset, @Required int limit);
 }
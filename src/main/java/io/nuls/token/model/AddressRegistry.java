@@ -0,0 +1,78 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.model;
+
+import io.nuls.contract.sdk.Address;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns addresses into compact ids, so that per-token state stores an int instead of an Address.
+ * Ids start at 1, 0 stands for "no address".
+ */
+public class AddressRegistry {
+
+    private Map<Address, Integer> ids = new HashMap<Address, Integer>();
+    private ArrayList<Address> addresses = new ArrayList<Address>();
+
+    /**
+     * @return the id of `address`, 0 if it was never registered
+     */
+    public int idOf(Address address) {
+        if (address == null) {
+            return 0;
+        }
+        Integer id = ids.get(address);
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * @return the id of `address`, registering it first if needed
+     */
+    public int register(Address address) {
+        Integer id = ids.get(address);
+        if (id == null) {
+            addresses.add(address);
+            id = addresses.size();
+            ids.put(address, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return the address registered under `id`, null for 0
+     */
+    public Address addressOf(int id) {
+        if (id == 0) {
+            return null;
+        }
+        return addresses.get(id - 1);
+    }
+
+    public int size() {
+        return addresses.size();
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.model;
+
+/**
+ * Open-addressing hash map from primitive `long` keys to primitive `int` values.
+ * A value of 0 is the same as no entry: storing 0 removes the key, so counters that drop to zero free their slot.
+ */
+public class LongIntHashMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public LongIntHashMap() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.values = new int[INITIAL_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return values[indexOf(key)] != 0;
+    }
+
+    /**
+     * @return the value of `key`, 0 if there is none
+     */
+    public int get(long key) {
+        return values[indexOf(key)];
+    }
+
+    /**
+     * @return the previous value of `key`, 0 if there was none
+     */
+    public int put(long key, int value) {
+        if (value == 0) {
+            return remove(key);
+        }
+        int index = indexOf(key);
+        int previous = values[index];
+        keys[index] = key;
+        values[index] = value;
+        if (previous == 0 && ++size * 3 > keys.length * 2) {
+            resize(keys.length << 1);
+        }
+        return previous;
+    }
+
+    /**
+     * Adds `delta` to the value of `key` with a single lookup.
+     * @return the new value
+     */
+    public int add(long key, int delta) {
+        int index = indexOf(key);
+        int value = values[index] + delta;
+        if (values[index] == 0) {
+            if (value != 0) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size * 3 > keys.length * 2) {
+                    resize(keys.length << 1);
+                }
+            }
+        } else if (value == 0) {
+            removeAt(index);
+        } else {
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * @return the removed value, 0 if there was none
+     */
+    public int remove(long key) {
+        int index = indexOf(key);
+        int previous = values[index];
+        if (previous != 0) {
+            removeAt(index);
+        }
+        return previous;
+    }
+
+    private void removeAt(int index) {
+        values[index] = 0;
+        size--;
+        // shift back the following entries of the probe sequence, so that no lookup stops at the freed slot
+        int mask = keys.length - 1;
+        int free = index;
+        int next = (free + 1) & mask;
+        while (values[next] != 0) {
+            int home = LongHashMap.hash(keys[next]) & mask;
+            boolean movable = free <= next ? (home <= free || home > next) : (home <= free && home > next);
+            if (movable) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                values[next] = 0;
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    /**
+     * @return the keys of the map, in no particular order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != 0) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the slot holding `key`, or the free slot where it would be inserted
+     */
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = LongHashMap.hash(key) & mask;
+        while (values[index] != 0 && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.model;
+
+/**
+ * Set of primitive `long` values stored as sorted, disjoint runs of consecutive values, so that contiguous
+ * values cost one entry. Values are enumerated in ascending order.
+ * <p>The runs are kept in chunks of at most CHUNK_CAPACITY runs, with a Fenwick tree over the number of values
+ * of each chunk: `get(index)` and adding or removing a value cost O(log chunks + CHUNK_CAPACITY) whether the values
+ * are contiguous or scattered, plus an O(chunks) rebuild of the tree each time a chunk is split or emptied.</p>
+ */
+public class LongRangeSet {
+
+    /**
+     * Upper bound of the runs of a chunk, a full chunk is split in two halves
+     */
+    private static final int CHUNK_CAPACITY = 64;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private Chunk[] chunks;
+    private int chunkCount;
+    /**
+     * Fenwick tree over the sizes of the chunks, 1-based
+     */
+    private int[] chunkSizeTree;
+    private int runs;
+    private int size;
+
+    public LongRangeSet() {
+        this.chunks = new Chunk[INITIAL_CAPACITY];
+        this.chunkSizeTree = new int[INITIAL_CAPACITY + 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of runs, which is the number of stored entries
+     */
+    public int runCount() {
+        return runs;
+    }
+
+    public boolean contains(long value) {
+        int chunk = floorChunk(value);
+        return chunk >= 0 && value <= chunks[chunk].lasts[chunks[chunk].floor(value)];
+    }
+
+    /**
+     * @return the value at `index` in ascending order
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        // descend the Fenwick tree to the chunk holding the value
+        int chunk = 0;
+        int rest = index;
+        for (int step = Integer.highestOneBit(chunkCount); step > 0; step >>= 1) {
+            int next = chunk + step;
+            if (next <= chunkCount && chunkSizeTree[next] <= rest) {
+                chunk = next;
+                rest -= chunkSizeTree[next];
+            }
+        }
+        Chunk c = chunks[chunk];
+        for (int run = 0; ; run++) {
+            long length = c.lasts[run] - c.starts[run] + 1;
+            if (rest < length) {
+                return c.starts[run] + rest;
+            }
+            rest -= length;
+        }
+    }
+
+    public void add(long value) {
+        addRange(value, 1);
+    }
+
+    /**
+     * Adds the `count` values from `start`, none of which may be in the set yet.
+     */
+    public void addRange(long start, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count " + count);
+        }
+        long last = start + (count - 1);
+        // the run before `start` is (previousChunk, previous), the run after it (nextChunk, next)
+        int previousChunk = floorChunk(start);
+        int previous = previousChunk >= 0 ? chunks[previousChunk].floor(start) : -1;
+        int nextChunk = previousChunk < 0 ? 0 : previousChunk;
+        int next = previous + 1;
+        if (nextChunk < chunkCount && next == chunks[nextChunk].runs) {
+            nextChunk++;
+            next = 0;
+        }
+        boolean hasPrevious = previous >= 0;
+        boolean hasNext = nextChunk < chunkCount;
+        if (hasPrevious && chunks[previousChunk].lasts[previous] >= start || hasNext && chunks[nextChunk].starts[next] <= last) {
+            throw new IllegalArgumentException("range already in the set");
+        }
+        boolean joinsPrevious = hasPrevious && chunks[previousChunk].lasts[previous] + 1 == start;
+        boolean joinsNext = hasNext && chunks[nextChunk].starts[next] - 1 == last;
+        if (joinsPrevious && joinsNext) {
+            long nextLast = chunks[nextChunk].lasts[next];
+            // the next run is in the same chunk or a later one, deleting it leaves previousChunk in place
+            deleteRun(nextChunk, next);
+            chunks[previousChunk].lasts[previous] = nextLast;
+            addToChunkSize(previousChunk, (int) (nextLast - start + 1));
+        } else if (joinsPrevious) {
+            chunks[previousChunk].lasts[previous] = last;
+            addToChunkSize(previousChunk, count);
+        } else if (joinsNext) {
+            chunks[nextChunk].starts[next] = start;
+            addToChunkSize(nextChunk, count);
+        } else if (hasPrevious) {
+            insertRun(previousChunk, previous + 1, start, last);
+        } else {
+            insertRun(0, 0, start, last);
+        }
+        size += count;
+    }
+
+    /**
+     * @return true if `value` was in the set
+     */
+    public boolean remove(long value) {
+        int chunk = floorChunk(value);
+        if (chunk < 0) {
+            return false;
+        }
+        Chunk c = chunks[chunk];
+        int run = c.floor(value);
+        long start = c.starts[run];
+        long last = c.lasts[run];
+        if (value > last) {
+            return false;
+        }
+        if (start == value && last == value) {
+            deleteRun(chunk, run);
+        } else if (start == value) {
+            c.starts[run] = value + 1;
+            addToChunkSize(chunk, -1);
+        } else if (last == value) {
+            c.lasts[run] = value - 1;
+            addToChunkSize(chunk, -1);
+        } else {
+            // split the run around the value
+            c.lasts[run] = value - 1;
+            addToChunkSize(chunk, (int) (value - 1 - last));
+            insertRun(chunk, run + 1, value + 1, last);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * @return the last chunk whose first run starts at or below `value`, -1 if there is none
+     */
+    private int floorChunk(long value) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (chunks[middle].starts[0] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    private void insertRun(int chunk, int run, long start, long last) {
+        if (chunkCount == 0) {
+            insertChunk(0, new Chunk());
+        } else if (chunks[chunk].runs == CHUNK_CAPACITY) {
+            insertChunk(chunk + 1, chunks[chunk].splitOff());
+            if (run > chunks[chunk].runs) {
+                run -= chunks[chunk].runs;
+                chunk++;
+            }
+        }
+        chunks[chunk].insert(run, start, last);
+        runs++;
+        addToChunkSize(chunk, (int) (last - start + 1));
+    }
+
+    private void deleteRun(int chunk, int run) {
+        Chunk c = chunks[chunk];
+        int length = (int) (c.lasts[run] - c.starts[run] + 1);
+        c.delete(run);
+        runs--;
+        if (c.runs == 0) {
+            System.arraycopy(chunks, chunk + 1, chunks, chunk, chunkCount - chunk - 1);
+            chunks[--chunkCount] = null;
+            rebuildChunkSizeTree();
+        } else {
+            addToChunkSize(chunk, -length);
+        }
+    }
+
+    private void insertChunk(int index, Chunk chunk) {
+        if (chunkCount == chunks.length) {
+            Chunk[] grown = new Chunk[chunks.length << 1];
+            System.arraycopy(chunks, 0, grown, 0, chunkCount);
+            chunks = grown;
+            chunkSizeTree = new int[grown.length + 1];
+        }
+        System.arraycopy(chunks, index, chunks, index + 1, chunkCount - index);
+        chunks[index] = chunk;
+        chunkCount++;
+        rebuildChunkSizeTree();
+    }
+
+    private void addToChunkSize(int chunk, int delta) {
+        chunks[chunk].size += delta;
+        for (int i = chunk + 1; i <= chunkCount; i += i & -i) {
+            chunkSizeTree[i] += delta;
+        }
+    }
+
+    private void rebuildChunkSizeTree() {
+        for (int i = 1; i <= chunkCount; i++) {
+            chunkSizeTree[i] = chunks[i - 1].size;
+        }
+        for (int i = 1; i <= chunkCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= chunkCount) {
+                chunkSizeTree[parent] += chunkSizeTree[i];
+            }
+        }
+    }
+
+    /**
+     * Sorted runs of a part of the set, run `i` holding the values from starts[i] to lasts[i],
+     * inclusive so that Long.MAX_VALUE can be stored
+     */
+    private static class Chunk {
+        private long[] starts;
+        private long[] lasts;
+        private int runs;
+        /**
+         * number of values in the runs
+         */
+        private int size;
+
+        private Chunk() {
+            this(INITIAL_CAPACITY);
+        }
+
+        private Chunk(int capacity) {
+            this.starts = new long[capacity];
+            this.lasts = new long[capacity];
+        }
+
+        /**
+         * @return the last run starting at or below `value`, -1 if there is none
+         */
+        private int floor(long value) {
+            int low = 0;
+            int high = runs - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= value) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high;
+        }
+
+        private void insert(int run, long start, long last) {
+            if (runs == starts.length) {
+                int capacity = Math.min(starts.length << 1, CHUNK_CAPACITY);
+                long[] grownStarts = new long[capacity];
+                long[] grownLasts = new long[capacity];
+                System.arraycopy(starts, 0, grownStarts, 0, runs);
+                System.arraycopy(lasts, 0, grownLasts, 0, runs);
+                starts = grownStarts;
+                lasts = grownLasts;
+            }
+            System.arraycopy(starts, run, starts, run + 1, runs - run);
+            System.arraycopy(lasts, run, lasts, run + 1, runs - run);
+            starts[run] = start;
+            lasts[run] = last;
+            runs++;
+        }
+
+        private void delete(int run) {
+            System.arraycopy(starts, run + 1, starts, run, runs - run - 1);
+            System.arraycopy(lasts, run + 1, lasts, run, runs - run - 1);
+            runs--;
+        }
+
+        /**
+         * Moves the upper half of the runs to a new chunk, the sizes of both chunks are recomputed.
+         */
+        private Chunk splitOff() {
+            int kept = runs / 2;
+            Chunk upper = new Chunk(CHUNK_CAPACITY);
+            upper.runs = runs - kept;
+            System.arraycopy(starts, kept, upper.starts, 0, upper.runs);
+            System.arraycopy(lasts, kept, upper.lasts, 0, upper.runs);
+            for (int i = 0; i < upper.runs; i++) {
+                upper.size += (int) (upper.lasts[i] - upper.starts[i] + 1);
+            }
+            runs = kept;
+            size -= upper.size;
+            return upper;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.model;
+
+/**
+ * All state kept for one tokenId, so that a token is read and written as a single storage entry.
+ * Addresses are stored as their id in the contract's AddressRegistry, 0 meaning none.
+ * <p>`ownerId` is only set on ownership slots: single tokens and the first token of a minted range,
+ * in which case `run` is the number of consecutive tokens owned through this slot.
+ * The other members of a range may still have a record for their approval, indexes or URI.
+ * `tokenURIRef` is the ref of the token's URI in the contract's TokenURIStore, 0 meaning none.</p>
+ */
+public class NRC721TokenRecord {
+    private int ownerId;
+    private int run;
+    private int approvedId;
+    private int ownedTokensIndex;
+    private int tokenURIRef;
+
+    public NRC721TokenRecord() {
+    }
+
+    public int getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(int ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public int getRun() {
+        return run;
+    }
+
+    public void setRun(int run) {
+        this.run = run;
+    }
+
+    public int getApprovedId() {
+        return approvedId;
+    }
+
+    public void setApprovedId(int approvedId) {
+        this.approvedId = approvedId;
+    }
+
+    public int getOwnedTokensIndex() {
+        return ownedTokensIndex;
+    }
+
+    public void setOwnedTokensIndex(int ownedTokensIndex) {
+        this.ownedTokensIndex = ownedTokensIndex;
+    }
+
+    public int getTokenURIRef() {
+        return tokenURIRef;
+    }
+
+    public void setTokenURIRef(int tokenURIRef) {
+        this.tokenURIRef = tokenURIRef;
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2018 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.token.model;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.nuls.contract.sdk.Utils.require;
+
+/**
+ * Token URI state shared by NRC721MetadataBase and NRC721FullBase.
+ * <p>With a base URI set, a token without a URI of its own gets `baseURI + tokenId + suffix`, so only the
+ * exceptions are stored per token.</p>
+ * <p>Stored URIs are interned: each distinct URI is kept once, and tokens hold a ref to it (0 meaning none).
+ * Refs are counted, the URI is freed when its last token lets go of it and its ref is reused.</p>
+ * <p>A URI is stored encoded against a small dictionary of prefixes: its first char is 1 + the index of the
+ * longest matching prefix (0 for none), followed by the rest of the URI. Prefixes can only be added, a URI
+ * stored before its prefix was added keeps its old encoding, so `intern` looks a URI up under each encoding it
+ * may have been stored with before storing it again.</p>
+ * <p>In reveal mode, derived URIs are `placeholderURI` until the owner reveals a seed after mint-out, after which the
+ * token gets the metadata index `(tokenId + seed) mod collectionSize` in place of its id. Nothing on chain binds the
+ * seed: the owner picks it knowing every holder, so holders trust the owner to draw it at random.</p>
+ * <p>The checks of the metadata bases are done here, so that both bases only delegate.</p>
+ */
+public class TokenURIStore {
+
+    /**
+     * upper bound of the prefix dictionary, whose entries are tried on every stored URI
+     */
+    public static final int MAX_PREFIXES = 16;
+
+    private String baseURI;
+    private String suffix;
+    private String placeholderURI;
+    private BigInteger collectionSize;
+    /**
+     * null until revealed
+     */
+    private BigInteger revealOffset;
+    private ArrayList<String> prefixes = new ArrayList<String>();
+    /**
+     * encoded uri -- ref
+     */
+    private Map<String, Integer> refs = new HashMap<String, Integer>();
+    /**
+     * ref - 1 -- encoded uri, null once freed
+     */
+    private ArrayList<String> uris = new ArrayList<String>();
+    /**
+     * ref -- number of tokens holding it
+     */
+    private LongIntHashMap refCounts = new LongIntHashMap();
+    private LongArrayList freeRefs = new LongArrayList();
+
+    public TokenURIStore() {
+    }
+
+    /**
+     * @param baseURI prefix of the derived URIs, null to derive none
+     * @param suffix appended after the tokenId, e.g. ".json", may be null
+     */
+    public void setBaseURI(String baseURI, String suffix) {
+        this.baseURI = baseURI;
+        this.suffix = suffix;
+    }
+
+    public String getBaseURI() {
+        return baseURI;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * Hides the derived URIs behind `placeholderURI` until `reveal`. Can only be done once.
+     * @param collectionSize number of metadata files, numbered from 0
+     */
+    public void setRevealMode(String placeholderURI, BigInteger collectionSize) {
+        require(this.collectionSize == null, "NRC721Metadata: reveal mode already set");
+        require(collectionSize != null && collectionSize.signum() > 0, "NRC721Metadata: invalid collection size");
+        this.placeholderURI = placeholderURI;
+        this.collectionSize = collectionSize;
+    }
+
+    public boolean isRevealMode() {
+        return collectionSize != null;
+    }
+
+    public boolean isRevealed() {
+        return revealOffset != null;
+    }
+
+    public String getPlaceholderURI() {
+        return placeholderURI;
+    }
+
+    public BigInteger getCollectionSize() {
+        return collectionSize;
+    }
+
+    /**
+     * Shuffles the derived URIs by `seed mod collectionSize`. Can only be done once.
+     */
+    public void reveal(BigInteger seed) {
+        require(collectionSize != null, "NRC721Metadata: reveal mode not set");
+        require(revealOffset == null, "NRC721Metadata: already revealed");
+        require(seed != null, "NRC721Metadata: empty seed");
+        this.revealOffset = seed.mod(collectionSize);
+    }
+
+    public int prefixCount() {
+        return prefixes.size();
+    }
+
+    public String getPrefix(int index) {
+        return prefixes.get(index);
+    }
+
+    /**
+     * Adds `prefix` to the dictionary that URIs stored from now on are encoded against.
+     * @return the index of `prefix` in the dictionary
+     */
+    public int addPrefix(String prefix) {
+        require(prefix != null && prefix.length() > 0, "NRC721Metadata: empty URI prefix");
+        int index = prefixes.indexOf(prefix);
+        if (index < 0) {
+            require(prefixes.size() < MAX_PREFIXES, "NRC721Metadata: too many URI prefixes");
+            prefixes.add(prefix);
+            index = prefixes.size() - 1;
+        }
+        return index;
+    }
+
+    /**
+     * Takes one reference to `uri`, storing it if no token holds it yet.
+     * @return the ref of `uri`
+     */
+    public int intern(String uri) {
+        Integer ref = storedRef(uri);
+        if (ref == null) {
+            uri = encode(uri);
+            if (freeRefs.isEmpty()) {
+                uris.add(uri);
+                ref = uris.size();
+            } else {
+                ref = (int) freeRefs.removeLast();
+                uris.set(ref - 1, uri);
+            }
+            refs.put(uri, ref);
+        }
+        refCounts.add(ref, 1);
+        return ref;
+    }
+
+    /**
+     * Drops one reference taken by `intern`, freeing the URI with the last one. A ref of 0 is ignored.
+     */
+    public void release(int ref) {
+        if (ref == 0 || refCounts.add(ref, -1) != 0) {
+            return;
+        }
+        refs.remove(uris.set(ref - 1, null));
+        freeRefs.add(ref);
+    }
+
+    /**
+     * Replaces the URI stored in `record`, releasing the previous one. A null `uri` removes it.
+     * @param record null if the token has no record, which is only allowed with a null `uri`
+     */
+    public void setTokenURI(NRC721TokenRecord record, String uri) {
+        if (record == null) {
+            return;
+        }
+        int previous = record.getTokenURIRef();
+        // take the new ref before releasing the old one, so that setting the same URI again does not free it
+        record.setTokenURIRef(uri == null ? 0 : intern(uri));
+        release(previous);
+    }
+
+    /**
+     * Releases the URI stored in the record of a burned token.
+     * @param record may be null
+     */
+    public void release(NRC721TokenRecord record) {
+        if (record != null) {
+            release(record.getTokenURIRef());
+        }
+    }
+
+    /**
+     * @param record the record of the token, may be null
+     * @return the URI stored in `record`, see `tokenURI(BigInteger, int)`
+     */
+    public String tokenURI(BigInteger tokenId, NRC721TokenRecord record) {
+        return tokenURI(tokenId, record == null ? 0 : record.getTokenURIRef());
+    }
+
+    /**
+     * @return the URI of `ref`, null for 0
+     */
+    public String uriOf(int ref) {
+        return ref == 0 ? null : decode(uris.get(ref - 1));
+    }
+
+    /**
+     * Tries the encoding without prefix and the encoding of each matching prefix, at most MAX_PREFIXES + 1 lookups.
+     * @return the ref `uri` is stored under, null if it is not stored
+     */
+    private Integer storedRef(String uri) {
+        Integer ref = refs.get((char) 0 + uri);
+        for (int i = 0; ref == null && i < prefixes.size(); i++) {
+            String prefix = prefixes.get(i);
+            if (uri.startsWith(prefix)) {
+                ref = refs.get((char) (i + 1) + uri.substring(prefix.length()));
+            }
+        }
+        return ref;
+    }
+
+    private String encode(String uri) {
+        int match = -1;
+        for (int i = 0; i < prefixes.size(); i++) {
+            String prefix = prefixes.get(i);
+            if (uri.startsWith(prefix) && (match < 0 || prefix.length() > prefixes.get(match).length())) {
+                match = i;
+            }
+        }
+        return match < 0 ? (char) 0 + uri : (char) (match + 1) + uri.substring(prefixes.get(match).length());
+    }
+
+    private String decode(String encoded) {
+        int match = encoded.charAt(0);
+        return match == 0 ? encoded.substring(1) : prefixes.get(match - 1) + encoded.substring(1);
+    }
+
+    /**
+     * @param ref the ref stored for the token, or 0
+     * @return the URI of `ref` if set, else the placeholder before reveal, else the URI derived from the base URI,
+     * null if there is no base URI
+     */
+    public String tokenURI(BigInteger tokenId, int ref) {
+        if (ref != 0) {
+            return uriOf(ref);
+        }
+        if (collectionSize != null) {
+            if (revealOffset == null) {
+                return placeholderURI;
+            }
+            tokenId = tokenId.add(revealOffset).mod(collectionSize);
+        }
+        if (baseURI == null) {
+            return null;
+        }
+        return suffix == null ? baseURI + tokenId : baseURI + tokenId + suffix;
+    }
+}